@@ -0,0 +1,48 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.maven.plugins.utility.DefaultWizard;
+import org.openmrs.maven.plugins.utility.Wizard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point used by the run goal to start the servlet container in a plain JVM, without going through
+ * a Maven build. The classpath is the one cached by the run-container goal and the settings are passed as
+ * system properties named like the run-container parameters.
+ * <p>
+ * The database container, if any, is expected to be running already.
+ */
+public class CargoContainerLauncher {
+
+	public static final String CONTAINER_ID = "containerId";
+
+	public static final String SERVER_ID = "serverId";
+
+	public static final String PORT = "port";
+
+	public static final String WATCH_API = "watchApi";
+
+	private static final Logger log = LoggerFactory.getLogger(CargoContainerLauncher.class);
+
+	private CargoContainerLauncher() {
+	}
+
+	public static void main(String[] args) {
+		try {
+			Wizard wizard = new DefaultWizard();
+			String port = System.getProperty(PORT);
+			new CargoContainerRunner(
+					System.getProperty(CONTAINER_ID),
+					System.getProperty(SERVER_ID),
+					StringUtils.isNotBlank(port) ? Integer.valueOf(port) : null,
+					Boolean.valueOf(System.getProperty(WATCH_API)),
+					null,
+					wizard).run();
+		}
+		catch (Exception e) {
+			log.error("Failed running server: {}", e.getMessage(), e);
+			System.exit(1);
+		}
+	}
+}
@@ -17,6 +17,7 @@ import org.openmrs.maven.plugins.model.Version;
 import org.openmrs.maven.plugins.utility.DockerHelper;
 import org.openmrs.maven.plugins.utility.MavenEnvironment;
 import org.openmrs.maven.plugins.utility.PlatformJdkValidator;
+import org.openmrs.maven.plugins.utility.PropertiesUtils;
 import org.openmrs.maven.plugins.utility.SDKConstants;
 import org.openmrs.maven.plugins.utility.Wizard;
 
@@ -25,6 +26,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 /**
@@ -36,6 +38,16 @@ import java.util.Set;
  */
 public class CargoContainerRunner {
 
+	static final String EXPLODED_WAR_PROPERTY = "explodedWar";
+
+	static final long HTTP_OK_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+	static final String RUNTIME_PROPERTIES_FILE = "openmrs-runtime.properties";
+
+	static final String CONNECTION_URL = "connection.url";
+
+	static final String CONNECTION_DRIVER_CLASS = "connection.driver_class";
+
 	private final String containerId;
 	private final String serverId;
 	private final Integer port;
@@ -54,11 +66,13 @@ public class CargoContainerRunner {
 	}
 
 	public void run() throws MojoExecutionException {
+		long runStart = System.currentTimeMillis();
 		wizard.showMessage("\nUsing JAVA_HOME: " + System.getProperty("java.home"));
 		wizard.showMessage("Using MAVEN_OPTS: " + System.getenv("MAVEN_OPTS"));
 
 		String resolvedServerId = wizard.promptForExistingServerIdIfMissing(serverId);
 		Server server = Server.loadServer(resolvedServerId);
+		ReadinessProbe.clearReady(server.getServerDirectory());
 
 		String jdk = System.getProperty("java.version");
 		Version platformVersion = new Version(server.getPlatformVersion());
@@ -76,7 +90,8 @@ public class CargoContainerRunner {
 
 		String warFile = findWarFile(server.getServerDirectory());
 
-		if (StringUtils.isNotBlank(server.getContainerId())) {
+		// without a Maven environment the container was launched directly and the caller started the database
+		if (StringUtils.isNotBlank(server.getContainerId()) && mavenEnvironment != null) {
 			new DockerHelper(mavenEnvironment).runDbContainer(
 					server.getContainerId(),
 					server.getDbUri(),
@@ -86,6 +101,7 @@ public class CargoContainerRunner {
 
 		setSystemProperties(server);
 		setWatchedProjectProperties(server);
+		configureSqlLog(server);
 
 		int effectivePort = port != null ? port : 8080;
 
@@ -116,7 +132,7 @@ public class CargoContainerRunner {
 			config.addDeployable(redirectWar);
 
 			// Deploy the OpenMRS WAR at /openmrs
-			WAR openmrsWar = new WAR(new File(server.getServerDirectory(), warFile).getAbsolutePath());
+			WAR openmrsWar = new WAR(getDeployableWar(server, new File(server.getServerDirectory(), warFile)).getAbsolutePath());
 			openmrsWar.setContext("openmrs");
 			config.addDeployable(openmrsWar);
 
@@ -129,6 +145,7 @@ public class CargoContainerRunner {
 				} catch (Exception e) {
 					// best-effort shutdown
 				}
+				ReadinessProbe.clearReady(server.getServerDirectory());
 				try {
 					FileUtils.deleteDirectory(tempDirectory);
 				} catch (Exception e) {
@@ -136,10 +153,42 @@ public class CargoContainerRunner {
 				}
 			}));
 
+			StartupTimeline timeline = new StartupTimeline(runStart);
+			StartupLogMonitor logMonitor = new StartupLogMonitor(
+					new File(server.getServerDirectory(), StartupLogMonitor.LOG_FILE));
+			long containerStart = System.currentTimeMillis();
+			timeline.add("SDK preparation", runStart, containerStart);
+			logMonitor.start();
+
 			container.start();
+			new ConnectorTuning(containerId, effectivePort, wizard).apply(container);
 
-			wizard.showMessage(String.format("OpenMRS is ready for you at http://localhost%s/openmrs/",
+			long containerStarted = System.currentTimeMillis();
+			ReadinessProbe readinessProbe = new ReadinessProbe(String.format("http://localhost%s/openmrs/",
 					effectivePort == 80 ? "" : ":" + effectivePort));
+			long firstResponse = readinessProbe.waitForOk(readinessProbe.getOpenmrsUrl(), HTTP_OK_TIMEOUT_MILLIS);
+			long ready = -1;
+			if (firstResponse > 0) {
+				String readinessUrl = readinessProbe.getReadinessUrl(server.getServerDirectory());
+				ready = readinessUrl.equals(readinessProbe.getOpenmrsUrl()) ? firstResponse
+						: readinessProbe.waitForOk(readinessUrl, HTTP_OK_TIMEOUT_MILLIS);
+			}
+			logMonitor.close();
+
+			reportTimeline(server, timeline, logMonitor, containerStart, containerStarted, firstResponse, ready);
+
+			if (ready > 0) {
+				try {
+					readinessProbe.markReady(server.getServerDirectory(), redirectDir, ready);
+				} catch (IOException e) {
+					wizard.showMessage("Unable to write the ready marker: " + e.getMessage());
+				}
+				wizard.showMessage("OpenMRS is ready for you at " + readinessProbe.getOpenmrsUrl());
+				startModuleRedeployer(server, readinessProbe);
+			} else {
+				wizard.showMessage("OpenMRS did not become ready in time, check the logs. It is expected at "
+						+ readinessProbe.getOpenmrsUrl());
+			}
 
 			// Cargo's embedded start() returns after the container is up.
 			// Block the main thread so the JVM stays alive until Ctrl+C / kill.
@@ -151,6 +200,78 @@ public class CargoContainerRunner {
 		}
 	}
 
+	/**
+	 * Restarts modules inside the running server when their .omod is deployed again. It relies on the REST
+	 * module and can be disabled with -DhotRedeploy=false.
+	 */
+	private void startModuleRedeployer(Server server, ReadinessProbe readinessProbe) {
+		if (!Boolean.parseBoolean(System.getProperty(ModuleRedeployer.HOT_REDEPLOY_PROPERTY, "true"))
+				|| readinessProbe.getReadinessUrl(server.getServerDirectory()).equals(readinessProbe.getOpenmrsUrl())) {
+			return;
+		}
+		ModuleRedeployer moduleRedeployer = new ModuleRedeployer(
+				new File(server.getServerDirectory(), SDKConstants.OPENMRS_SERVER_MODULES), readinessProbe.getOpenmrsUrl(),
+				"admin", server.getParam("admin_user_password", "Admin123"), wizard);
+		try {
+			moduleRedeployer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(moduleRedeployer::close));
+		}
+		catch (IOException e) {
+			wizard.showMessage("Unable to watch the modules directory: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Prints where the start-up time went and saves it as JSON in the server directory, so that starts can be
+	 * compared after changing modules or configuration.
+	 */
+	private void reportTimeline(Server server, StartupTimeline timeline, StartupLogMonitor logMonitor,
+			long containerStart, long containerStarted, long firstResponse, long ready) {
+		long firstLogLine = logMonitor.getFirstLine();
+		if (firstLogLine > containerStart && firstLogLine < containerStarted) {
+			timeline.add("Container boot", containerStart, firstLogLine);
+			timeline.add("WAR deploy", firstLogLine, containerStarted);
+		} else {
+			timeline.add("Container boot and WAR deploy", containerStart, containerStarted);
+		}
+		logMonitor.addTo(timeline);
+
+		long end = System.currentTimeMillis();
+		if (firstResponse > 0) {
+			timeline.add("First HTTP 200", containerStarted, firstResponse);
+			end = firstResponse;
+		}
+		if (ready > firstResponse) {
+			timeline.add("REST ready", firstResponse, ready);
+			end = ready;
+		}
+
+		wizard.showMessage("\nStart-up timeline:\n" + timeline.toTable(end));
+		File timelineFile = new File(server.getServerDirectory(), StartupTimeline.TIMELINE_FILE);
+		try {
+			timeline.writeJson(timelineFile, end);
+		}
+		catch (MojoExecutionException e) {
+			wizard.showMessage(e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the exploded copy of the WAR kept in the server directory, so the container does not need to
+	 * unpack the WAR on every start. The container's work directory stays in the tmp directory, which
+	 * keeps the exploded copy reusable across runs. Can be disabled with -DexplodedWar=false.
+	 */
+	private File getDeployableWar(Server server, File warFile) throws MojoExecutionException {
+		if (!Boolean.parseBoolean(System.getProperty(EXPLODED_WAR_PROPERTY, "true"))) {
+			return warFile;
+		}
+		long start = System.currentTimeMillis();
+		File explodedWar = new ExplodedWarCache(server.getServerExplodedWarDirectory()).getExplodedWar(warFile);
+		wizard.showMessage(String.format("Using exploded %s from %s (prepared in %d ms)", warFile.getName(),
+				explodedWar.getAbsolutePath(), System.currentTimeMillis() - start));
+		return explodedWar;
+	}
+
 	private void setSystemProperties(Server server) {
 		File serverPath = server.getServerDirectory();
 		System.setProperty("OPENMRS_INSTALLATION_SCRIPT",
@@ -164,6 +285,62 @@ public class CargoContainerRunner {
 		}
 	}
 
+	/**
+	 * Puts the {@link SqlLoggingDriver} in front of the database in openmrs-runtime.properties if SQL logging is
+	 * enabled for the server and removes it otherwise. OpenMRS writes the runtime properties on the first start,
+	 * so statements are logged from the second start on.
+	 */
+	void configureSqlLog(Server server) throws MojoExecutionException {
+		boolean enabled = server.isSqlLog() && (server.isMySqlDb() || server.isPostgreSqlDb());
+		File runtimePropertiesFile = new File(server.getServerDirectory(), RUNTIME_PROPERTIES_FILE);
+		if (!runtimePropertiesFile.exists()) {
+			if (enabled) {
+				wizard.showMessage("SQL statements will be logged from the next start on, once OpenMRS created "
+						+ RUNTIME_PROPERTIES_FILE + ".");
+			}
+			return;
+		}
+
+		Properties runtimeProperties = PropertiesUtils.loadPropertiesFromFile(runtimePropertiesFile);
+		String url = runtimeProperties.getProperty(CONNECTION_URL);
+		if (url == null) {
+			return;
+		}
+		String driver = runtimeProperties.getProperty(CONNECTION_DRIVER_CLASS);
+		String loggingDriver = SqlLoggingDriver.class.getName();
+		String newUrl;
+		String newDriver;
+		if (enabled) {
+			newUrl = SqlLoggingDriver.toLoggingUrl(url);
+			newDriver = loggingDriver;
+		} else {
+			newUrl = SqlLoggingDriver.toDelegateUrl(url);
+			newDriver = loggingDriver.equals(driver) ? server.getDbDriver() : driver;
+		}
+		if (!newUrl.equals(url) || (newDriver != null && !newDriver.equals(driver))) {
+			runtimeProperties.setProperty(CONNECTION_URL, newUrl);
+			if (newDriver != null) {
+				runtimeProperties.setProperty(CONNECTION_DRIVER_CLASS, newDriver);
+			}
+			PropertiesUtils.savePropertiesChangesToFile(runtimeProperties, runtimePropertiesFile);
+		}
+
+		if (enabled) {
+			File logFile = new File(server.getServerDirectory(), SqlLog.LOG_FILE);
+			String threshold = StringUtils.defaultIfBlank(server.getSqlLogThreshold(),
+					String.valueOf(SqlLog.DEFAULT_THRESHOLD_MILLIS));
+			if (!loggingDriver.equals(driver) && StringUtils.isNotBlank(driver)) {
+				System.setProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY, driver);
+			} else if (StringUtils.isNotBlank(server.getDbDriver())) {
+				System.setProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY, server.getDbDriver());
+			}
+			System.setProperty(SqlLog.FILE_PROPERTY, logFile.getAbsolutePath());
+			System.setProperty(SqlLog.THRESHOLD_PROPERTY, threshold);
+			wizard.showMessage(String.format("Logging SQL statements slower than %s ms and frequently repeated ones to %s",
+					threshold, logFile.getAbsolutePath()));
+		}
+	}
+
 	private void setWatchedProjectProperties(Server server) {
 		Set<Project> watchedProjects = server.getWatchedProjects();
 		if (watchedProjects.isEmpty()) {
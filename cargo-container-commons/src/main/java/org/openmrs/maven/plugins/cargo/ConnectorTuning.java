@@ -0,0 +1,172 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tunes the HTTP connector of a started embedded container for serving the OpenMRS UIs to a browser: response
+ * compression for scripts, styles and JSON, long-lived keep-alive connections and, if requested, the size of the
+ * request thread pool and virtual threads.
+ * <p>
+ * Cargo creates the connectors of embedded containers itself, so the settings are applied once the container
+ * is running: through the JMX beans of the connectors for Tomcat and through the server object for Jetty.
+ * The settings are read from system properties, so they can be passed to the run goal with -D.
+ */
+public class ConnectorTuning {
+
+	public static final String COMPRESSION_PROPERTY = "compression";
+
+	public static final String KEEP_ALIVE_TIMEOUT_PROPERTY = "keepAliveTimeout";
+
+	public static final String MAX_THREADS_PROPERTY = "maxThreads";
+
+	public static final String VIRTUAL_THREADS_PROPERTY = "virtualThreads";
+
+	static final String COMPRESSIBLE_MIME_TYPES = "text/html,text/xml,text/plain,text/css,text/javascript,"
+			+ "application/javascript,application/json,application/xml,image/svg+xml";
+
+	static final String DEFAULT_KEEP_ALIVE_TIMEOUT = "60000";
+
+	private final String containerId;
+
+	private final int port;
+
+	private final Wizard wizard;
+
+	public ConnectorTuning(String containerId, int port, Wizard wizard) {
+		this.containerId = containerId;
+		this.port = port;
+		this.wizard = wizard;
+	}
+
+	public void apply(Object container) {
+		try {
+			if (containerId.startsWith("tomcat")) {
+				applyToTomcat();
+			} else if (containerId.startsWith("jetty")) {
+				applyToJetty(container);
+			}
+		}
+		catch (Exception e) {
+			// the container works with its defaults as well
+			wizard.showMessage("Unable to tune the " + containerId + " connector: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the connector attributes for the container, named as in Tomcat's server.xml
+	 */
+	Map<String, String> getTomcatAttributes() {
+		Map<String, String> attributes = new LinkedHashMap<>();
+		if (Boolean.parseBoolean(System.getProperty(COMPRESSION_PROPERTY, "true"))) {
+			attributes.put("compression", "on");
+			attributes.put("compressionMinSize", "1024");
+			// Tomcat 7 still uses the original spelling of the attribute
+			attributes.put("tomcat7x".equals(containerId) ? "compressableMimeType" : "compressibleMimeType",
+					COMPRESSIBLE_MIME_TYPES);
+		}
+		attributes.put("keepAliveTimeout", System.getProperty(KEEP_ALIVE_TIMEOUT_PROPERTY, DEFAULT_KEEP_ALIVE_TIMEOUT));
+		attributes.put("maxKeepAliveRequests", "-1");
+		String maxThreads = System.getProperty(MAX_THREADS_PROPERTY);
+		if (StringUtils.isNotBlank(maxThreads)) {
+			attributes.put("maxThreads", maxThreads);
+		}
+		return attributes;
+	}
+
+	boolean isVirtualThreadsRequested() {
+		if (!Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS_PROPERTY))) {
+			return false;
+		}
+		if (!"tomcat11x".equals(containerId) || getJavaMajorVersion() < 21) {
+			wizard.showMessage("Virtual threads require Tomcat 11 and JDK 21 or newer, using platform threads.");
+			return false;
+		}
+		return true;
+	}
+
+	private void applyToTomcat() throws Exception {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		Set<ObjectName> connectors = mBeanServer.queryNames(new ObjectName("*:type=Connector,port=" + port), null);
+		if (connectors.isEmpty()) {
+			wizard.showMessage("The " + containerId + " connector is not registered with JMX, using its default settings.");
+			return;
+		}
+
+		Map<String, String> attributes = getTomcatAttributes();
+		boolean virtualThreads = isVirtualThreadsRequested();
+		for (ObjectName connector : connectors) {
+			for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+				mBeanServer.setAttribute(connector, new Attribute(attribute.getKey(), attribute.getValue()));
+			}
+			if (virtualThreads) {
+				// the executor of the connector is created when it starts
+				mBeanServer.setAttribute(connector, new Attribute("useVirtualThreads", "true"));
+				mBeanServer.invoke(connector, "stop", null, null);
+				mBeanServer.invoke(connector, "start", null, null);
+			}
+		}
+		wizard.showMessage("Tuned the " + containerId + " connector: " + attributes
+				+ (virtualThreads ? " with virtual threads" : ""));
+	}
+
+	/**
+	 * Jetty does not allow changing the handlers of a started server, so compression is not available for it.
+	 * The idle timeout of the connectors and the size of the thread pool can be changed while it runs.
+	 */
+	private void applyToJetty(Object container) throws Exception {
+		isVirtualThreadsRequested();
+		Method getServer = container.getClass().getMethod("getServer");
+		Object server = getServer.invoke(container);
+		if (server == null) {
+			return;
+		}
+
+		long idleTimeout = Long.parseLong(System.getProperty(KEEP_ALIVE_TIMEOUT_PROPERTY, DEFAULT_KEEP_ALIVE_TIMEOUT));
+		for (Object connector : (Object[]) server.getClass().getMethod("getConnectors").invoke(server)) {
+			Method setIdleTimeout = findMethod(connector.getClass(), "setIdleTimeout", long.class);
+			if (setIdleTimeout != null) {
+				setIdleTimeout.invoke(connector, idleTimeout);
+			}
+		}
+
+		String maxThreads = System.getProperty(MAX_THREADS_PROPERTY);
+		if (StringUtils.isNotBlank(maxThreads)) {
+			Object threadPool = server.getClass().getMethod("getThreadPool").invoke(server);
+			Method setMaxThreads = findMethod(threadPool.getClass(), "setMaxThreads", int.class);
+			if (setMaxThreads != null) {
+				setMaxThreads.invoke(threadPool, Integer.parseInt(maxThreads));
+			}
+		}
+		wizard.showMessage("Tuned the " + containerId + " connectors: idle timeout " + idleTimeout + " ms"
+				+ (StringUtils.isNotBlank(maxThreads) ? ", max threads " + maxThreads : ""));
+	}
+
+	private static Method findMethod(Class<?> type, String name, Class<?> parameterType) {
+		try {
+			return type.getMethod(name, parameterType);
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	static int getJavaMajorVersion() {
+		String version = System.getProperty("java.specification.version");
+		try {
+			return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.utility.Checksums;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps an exploded copy of the server's WAR, so that the servlet container can deploy it as an expanded
+ * webapp instead of unpacking the packed WAR on every start.
+ * <p>
+ * The copy is keyed by the SHA-1 checksum of the WAR and is only rebuilt when the WAR changes. OpenMRS writes
+ * module resources into its webapp directory at runtime, so before each start the copy is restored to the
+ * content of the WAR: files added at runtime are removed and changed files are extracted again.
+ */
+public class ExplodedWarCache {
+
+	static final String WEBAPP_DIR = "webapp";
+
+	static final String STATE_FILE = "war.properties";
+
+	static final String MANIFEST_FILE = "manifest.txt";
+
+	private static final String CHECKSUM = "checksum";
+
+	private static final String WAR_SIZE = "warSize";
+
+	private static final String WAR_LAST_MODIFIED = "warLastModified";
+
+	private final File cacheDir;
+
+	public ExplodedWarCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * @param warFile the packed WAR
+	 * @return the directory with the exploded WAR, ready to be deployed
+	 */
+	public File getExplodedWar(File warFile) throws MojoExecutionException {
+		File webappDir = new File(cacheDir, WEBAPP_DIR);
+		File stateFile = new File(cacheDir, STATE_FILE);
+		File manifestFile = new File(cacheDir, MANIFEST_FILE);
+		try {
+			Properties state = new Properties();
+			if (stateFile.exists()) {
+				try (InputStream in = Files.newInputStream(stateFile.toPath())) {
+					state.load(in);
+				}
+			}
+
+			// hashing a 100 MB WAR is not free, so only do it if the file looks different
+			String checksum;
+			if (String.valueOf(warFile.length()).equals(state.getProperty(WAR_SIZE))
+					&& String.valueOf(warFile.lastModified()).equals(state.getProperty(WAR_LAST_MODIFIED))) {
+				checksum = state.getProperty(CHECKSUM);
+			} else {
+				checksum = sha1(warFile);
+			}
+
+			if (webappDir.isDirectory() && manifestFile.exists() && checksum.equals(state.getProperty(CHECKSUM))) {
+				restore(warFile, webappDir, readManifest(manifestFile));
+			} else {
+				explode(warFile, webappDir, manifestFile);
+			}
+
+			state.setProperty(CHECKSUM, checksum);
+			state.setProperty(WAR_SIZE, String.valueOf(warFile.length()));
+			state.setProperty(WAR_LAST_MODIFIED, String.valueOf(warFile.lastModified()));
+			try (OutputStream out = Files.newOutputStream(stateFile.toPath())) {
+				state.store(out, "Exploded " + warFile.getName());
+			}
+		}
+		catch (IOException e) {
+			FileUtils.deleteQuietly(cacheDir);
+			throw new MojoExecutionException("Unable to explode " + warFile + " into " + webappDir + ": " + e.getMessage(), e);
+		}
+		return webappDir;
+	}
+
+	private void explode(File warFile, File webappDir, File manifestFile) throws IOException {
+		FileUtils.deleteDirectory(cacheDir);
+		cacheDir.mkdirs();
+		Path webappPath = webappDir.toPath().toAbsolutePath().normalize();
+		try (ZipFile war = new ZipFile(warFile);
+		     BufferedWriter manifest = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			Enumeration<? extends ZipEntry> entries = war.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) {
+					Files.createDirectories(resolve(webappPath, entry));
+				} else {
+					File file = extract(war, entry, webappPath);
+					manifest.write(entry.getName() + "\t" + file.length() + "\t" + file.lastModified());
+					manifest.newLine();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes files which are not part of the WAR and extracts again the files which were modified
+	 */
+	private void restore(File warFile, File webappDir, Map<String, long[]> manifest) throws IOException {
+		Path webappPath = webappDir.toPath().toAbsolutePath().normalize();
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(webappPath)) {
+			files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+
+		Map<String, long[]> unchanged = new HashMap<>();
+		for (Path path : files) {
+			String name = webappPath.relativize(path).toString().replace(File.separatorChar, '/');
+			long[] expected = manifest.get(name);
+			File file = path.toFile();
+			if (expected == null) {
+				Files.delete(path);
+			} else if (expected[0] == file.length() && expected[1] == file.lastModified()) {
+				unchanged.put(name, expected);
+			}
+		}
+
+		if (unchanged.size() < manifest.size()) {
+			try (ZipFile war = new ZipFile(warFile)) {
+				for (String name : manifest.keySet()) {
+					if (!unchanged.containsKey(name)) {
+						File file = extract(war, war.getEntry(name), webappPath);
+						manifest.put(name, new long[] { file.length(), file.lastModified() });
+					}
+				}
+			}
+			writeManifest(new File(cacheDir, MANIFEST_FILE), manifest);
+		}
+	}
+
+	private File extract(ZipFile war, ZipEntry entry, Path webappPath) throws IOException {
+		if (entry == null) {
+			throw new IOException("The WAR changed while it was being deployed");
+		}
+		Path target = resolve(webappPath, entry);
+		Files.createDirectories(target.getParent());
+		try (InputStream in = war.getInputStream(entry)) {
+			Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return target.toFile();
+	}
+
+	private Path resolve(Path webappPath, ZipEntry entry) throws IOException {
+		Path target = webappPath.resolve(entry.getName()).normalize();
+		if (!target.startsWith(webappPath)) {
+			throw new IOException("Entry " + entry.getName() + " is outside of the webapp directory");
+		}
+		return target;
+	}
+
+	private Map<String, long[]> readManifest(File manifestFile) throws IOException {
+		Map<String, long[]> manifest = new HashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] columns = line.split("\t");
+				if (columns.length == 3) {
+					manifest.put(columns[0], new long[] { Long.parseLong(columns[1]), Long.parseLong(columns[2]) });
+				}
+			}
+		}
+		return manifest;
+	}
+
+	private void writeManifest(File manifestFile, Map<String, long[]> manifest) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, long[]> entry : manifest.entrySet()) {
+				writer.write(entry.getKey() + "\t" + entry.getValue()[0] + "\t" + entry.getValue()[1]);
+				writer.newLine();
+			}
+		}
+	}
+
+	static String sha1(File file) throws IOException {
+		MessageDigest digest = Checksums.sha1();
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+			byte[] buffer = new byte[64 * 1024];
+			while (in.read(buffer) != -1) {
+				// reading updates the digest
+			}
+		}
+		return Checksums.toHex(digest.digest());
+	}
+}
@@ -0,0 +1,225 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.io.IOUtils;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Watches the modules directory of a running server and restarts a module inside OpenMRS when its .omod is
+ * replaced, e.g. by the build goal deploying a watched project. Other modules stay loaded, so picking up a
+ * rebuilt module takes seconds instead of a server restart.
+ * <p>
+ * The module is restarted through the module action endpoint of the REST module, which stops the module,
+ * loads its classes from the .omod again and refreshes the web application context. A module which was not
+ * loaded at start or whose file name changed, i.e. a new version, still requires a server restart.
+ */
+public class ModuleRedeployer implements AutoCloseable {
+
+	public static final String HOT_REDEPLOY_PROPERTY = "hotRedeploy";
+
+	static final String MODULE_ACTION_PATH = "ws/rest/v1/moduleaction";
+
+	/**
+	 * Deploying copies the .omod in several writes, so wait until it has not changed for a while
+	 */
+	static final long DEBOUNCE_MILLIS = 1000;
+
+	private static final Pattern MODULE_ID = Pattern.compile("<id>\\s*([^<\\s]+)\\s*</id>");
+
+	private final File modulesDir;
+
+	private final String openmrsUrl;
+
+	private final String authorization;
+
+	private final Wizard wizard;
+
+	/**
+	 * Module ids and the file names they were loaded from
+	 */
+	private final Map<String, String> loadedModules = new HashMap<>();
+
+	private WatchService watchService;
+
+	public ModuleRedeployer(File modulesDir, String openmrsUrl, String username, String password, Wizard wizard) {
+		this.modulesDir = modulesDir;
+		this.openmrsUrl = openmrsUrl;
+		this.authorization = "Basic " + Base64.getEncoder()
+				.encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+		this.wizard = wizard;
+	}
+
+	public void start() throws IOException {
+		File[] omods = modulesDir.listFiles((dir, name) -> name.endsWith(".omod"));
+		if (omods != null) {
+			for (File omod : omods) {
+				try {
+					String moduleId = readModuleId(omod);
+					if (moduleId != null) {
+						loadedModules.put(moduleId, omod.getName());
+					}
+				}
+				catch (IOException e) {
+					// OpenMRS did not load it either
+				}
+			}
+		}
+
+		watchService = modulesDir.toPath().getFileSystem().newWatchService();
+		modulesDir.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		Thread thread = new Thread(this::watch, "openmrs-module-redeployer");
+		thread.setDaemon(true);
+		thread.start();
+		wizard.showMessage("Hot redeployment of modules enabled for " + modulesDir.getAbsolutePath());
+	}
+
+	@Override
+	public void close() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			}
+			catch (IOException e) {
+				// the thread ends with the closed watch service anyway
+			}
+		}
+	}
+
+	private void watch() {
+		Map<String, Long> pending = new LinkedHashMap<>();
+		try {
+			while (true) {
+				WatchKey key = pending.isEmpty() ? watchService.take()
+						: watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						Object context = event.context();
+						if (context instanceof Path && context.toString().endsWith(".omod")) {
+							pending.put(context.toString(), System.currentTimeMillis());
+						}
+					}
+					key.reset();
+				}
+
+				long quietSince = System.currentTimeMillis() - DEBOUNCE_MILLIS;
+				pending.entrySet().removeIf(change -> {
+					if (change.getValue() > quietSince) {
+						return false;
+					}
+					redeploy(new File(modulesDir, change.getKey()));
+					return true;
+				});
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e) {
+			// stopped with the server
+		}
+	}
+
+	void redeploy(File omod) {
+		if (!omod.exists()) {
+			return;
+		}
+		String moduleId;
+		try {
+			moduleId = readModuleId(omod);
+		}
+		catch (IOException e) {
+			wizard.showMessage("Unable to read " + omod.getName() + ": " + e.getMessage());
+			return;
+		}
+		if (moduleId == null) {
+			return;
+		}
+
+		String loadedFrom = loadedModules.get(moduleId);
+		if (loadedFrom == null) {
+			wizard.showMessage("Module " + moduleId + " was added, restart the server to load it.");
+			return;
+		}
+		if (!loadedFrom.equals(omod.getName())) {
+			wizard.showMessage("Module " + moduleId + " changed from " + loadedFrom + " to " + omod.getName()
+					+ ", restart the server to load the new version.");
+			return;
+		}
+
+		wizard.showMessage("Module " + moduleId + " changed, restarting it...");
+		long start = System.currentTimeMillis();
+		try {
+			restartModule(moduleId);
+			wizard.showMessage(String.format("Restarted module %s in %d ms", moduleId, System.currentTimeMillis() - start));
+		}
+		catch (IOException e) {
+			wizard.showMessage("Unable to restart module " + moduleId + ", restart the server to load it: " + e.getMessage());
+		}
+	}
+
+	void restartModule(String moduleId) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(openmrsUrl + MODULE_ACTION_PATH).openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setConnectTimeout(5000);
+			// restarting a module refreshes the whole application context
+			connection.setReadTimeout((int) TimeUnit.MINUTES.toMillis(5));
+			connection.setRequestProperty("Authorization", authorization);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(("{\"action\":\"restart\",\"modules\":[\"" + moduleId + "\"]}").getBytes(StandardCharsets.UTF_8));
+			}
+			int status = connection.getResponseCode();
+			if (status / 100 != 2) {
+				String body = "";
+				if (connection.getErrorStream() != null) {
+					try (InputStream in = connection.getErrorStream()) {
+						body = IOUtils.toString(in, StandardCharsets.UTF_8);
+					}
+				}
+				throw new IOException("HTTP " + status + " " + body);
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * @return the id from the config.xml of the module or null if it is not a module
+	 */
+	static String readModuleId(File omod) throws IOException {
+		try (ZipFile zip = new ZipFile(omod)) {
+			ZipEntry config = zip.getEntry("config.xml");
+			if (config == null) {
+				return null;
+			}
+			try (InputStream in = zip.getInputStream(config)) {
+				Matcher matcher = MODULE_ID.matcher(IOUtils.toString(in, StandardCharsets.UTF_8));
+				return matcher.find() ? matcher.group(1) : null;
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package org.openmrs.maven.plugins.cargo;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+
+/**
+ * Tells when a started server is usable. OpenMRS answers HTTP requests long before its modules are started,
+ * so readiness is probed with the REST session endpoint, which only responds once the REST module is running.
+ * <p>
+ * When the server is ready a {@value #READY_MARKER} file with the time and URL is written into the server
+ * directory and the root webapp starts serving {@value #READY_ROUTE}, so that scripts and tests can wait
+ * for either instead of sleeping for a fixed time.
+ */
+public class ReadinessProbe {
+
+	public static final String READY_MARKER = "ready";
+
+	public static final String READY_ROUTE = "sdk/ready";
+
+	static final String REST_SESSION_PATH = "ws/rest/v1/session";
+
+	static final long INITIAL_DELAY_MILLIS = 250;
+
+	static final long MAX_DELAY_MILLIS = 5000;
+
+	private final String openmrsUrl;
+
+	/**
+	 * @param openmrsUrl the URL of the OpenMRS webapp ending with a slash
+	 */
+	public ReadinessProbe(String openmrsUrl) {
+		this.openmrsUrl = openmrsUrl;
+	}
+
+	public String getOpenmrsUrl() {
+		return openmrsUrl;
+	}
+
+	/**
+	 * @param serverDirectory the server directory with the installed modules
+	 * @return the URL which responds with HTTP 200 once the server is ready
+	 */
+	public String getReadinessUrl(File serverDirectory) {
+		File[] restModules = new File(serverDirectory, "modules")
+				.listFiles((dir, name) -> name.startsWith("webservices.rest") && name.endsWith(".omod"));
+		// without the REST module the server is as ready as it gets once the webapp responds
+		return restModules != null && restModules.length > 0 ? openmrsUrl + REST_SESSION_PATH : openmrsUrl;
+	}
+
+	/**
+	 * Polls the URL until it responds with HTTP 200, doubling the delay between attempts up to
+	 * {@value #MAX_DELAY_MILLIS} ms.
+	 *
+	 * @return the time of the first HTTP 200 response or -1 if there was none before the timeout
+	 */
+	public long waitForOk(String url, long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		long delay = INITIAL_DELAY_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			if (isOk(url)) {
+				return System.currentTimeMillis();
+			}
+			Thread.sleep(Math.min(delay, Math.max(0, deadline - System.currentTimeMillis())));
+			delay = Math.min(delay * 2, MAX_DELAY_MILLIS);
+		}
+		return -1;
+	}
+
+	boolean isOk(String url) {
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setConnectTimeout(2000);
+			connection.setReadTimeout(30000);
+			return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+		}
+		catch (IOException e) {
+			// not listening yet
+			return false;
+		}
+		finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Writes the ready marker into the server directory and the ready route into the root webapp
+	 */
+	public void markReady(File serverDirectory, File rootWebappDirectory, long readyTime) throws IOException {
+		byte[] content = (Instant.ofEpochMilli(readyTime) + "\n" + openmrsUrl + "\n").getBytes(StandardCharsets.UTF_8);
+		Files.write(new File(serverDirectory, READY_MARKER).toPath(), content);
+
+		File readyRoute = new File(rootWebappDirectory, READY_ROUTE);
+		readyRoute.getParentFile().mkdirs();
+		Files.write(readyRoute.toPath(), content);
+	}
+
+	public static void clearReady(File serverDirectory) {
+		new File(serverDirectory, READY_MARKER).delete();
+	}
+}
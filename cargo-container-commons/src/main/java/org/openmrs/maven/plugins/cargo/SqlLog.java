@@ -0,0 +1,228 @@
+package org.openmrs.maven.plugins.cargo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the statements executed through the {@link SqlLoggingDriver} and writes the slow ones, with their timing
+ * and where they were executed from, to a log file in the server directory, which is rotated once it gets large.
+ * <p>
+ * Statements are counted after replacing their literals and collapsing IN lists, so that a statement repeated with
+ * different ids shows up as one. At most {@link #MAX_STATEMENTS} distinct statements are counted, further ones are
+ * counted together, so that a server generating many distinct statements does not run out of memory. When such a
+ * statement is executed 100, 1000, 10000... times, it is logged with a sample of the stack, which makes N+1 queries
+ * of Hibernate mappings easy to spot. A summary of the most frequent statements is written when the server stops.
+ */
+public class SqlLog {
+
+	public static final String LOG_FILE = "sql.log";
+
+	static final String FILE_PROPERTY = "openmrs.sdk.sqlLog.file";
+
+	static final String THRESHOLD_PROPERTY = "openmrs.sdk.sqlLog.threshold";
+
+	public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+	static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+	static final int MAX_FILES = 5;
+
+	static final long FIRST_REPEAT_MARK = 100;
+
+	static final int STACK_DEPTH = 10;
+
+	static final int SUMMARY_SIZE = 20;
+
+	static final int MAX_STATEMENTS = 10000;
+
+	static final String OTHER_STATEMENTS = "(other statements)";
+
+	private static final String[] IGNORED_FRAMES = { "java.", "javax.", "jdk.", "sun.", "com.sun.", "org.hibernate.",
+			"com.mchange.", "com.mysql.", "org.postgresql.", "org.springframework.", "org.apache.", "net.sf.",
+			"org.openmrs.maven.plugins.cargo.", "com.zaxxer." };
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final Pattern IN_LIST = Pattern.compile("\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)",
+			Pattern.CASE_INSENSITIVE);
+
+	private static volatile SqlLog instance;
+
+	private final File file;
+
+	private final long thresholdNanos;
+
+	private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+	SqlLog(File file, long thresholdMillis) {
+		this.file = file;
+		this.thresholdNanos = thresholdMillis * 1000000;
+	}
+
+	/**
+	 * @return the log configured by the system properties set by the container runner
+	 */
+	static SqlLog get() {
+		if (instance == null) {
+			synchronized (SqlLog.class) {
+				if (instance == null) {
+					String path = System.getProperty(FILE_PROPERTY);
+					File logFile = path != null ? new File(path) : new File(System.getProperty("java.io.tmpdir"), LOG_FILE);
+					long threshold = Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS);
+					SqlLog log = new SqlLog(logFile, threshold);
+					Runtime.getRuntime().addShutdownHook(new Thread(log::writeSummary, "openmrs-sdk-sql-log"));
+					instance = log;
+				}
+			}
+		}
+		return instance;
+	}
+
+	void record(String sql, long nanos) {
+		if (sql == null) {
+			return;
+		}
+		String key = normalize(sql);
+		Stats statementStats = stats.get(key);
+		if (statementStats == null) {
+			// the limit may be exceeded by a few statements added concurrently
+			if (stats.size() >= MAX_STATEMENTS) {
+				key = OTHER_STATEMENTS;
+			}
+			statementStats = stats.computeIfAbsent(key, k -> new Stats());
+		}
+		long count = statementStats.add(nanos);
+		boolean counted = !OTHER_STATEMENTS.equals(key);
+
+		if (nanos >= thresholdNanos) {
+			write(String.format("%s SLOW %d ms%s: %s%n%s", Instant.now(), nanos / 1000000,
+					counted ? " (executed " + count + " times)" : "", sql, getStackSample()));
+		} else if (counted && isRepeatMark(count)) {
+			write(String.format("%s REPEATED %d times (%.1f ms in total): %s%n%s", Instant.now(), count,
+					statementStats.totalNanos.sum() / 1000000.0, sql, getStackSample()));
+		}
+	}
+
+	/**
+	 * @return the statement with its literals replaced and IN lists collapsed, so that executions with different
+	 * values are counted together
+	 */
+	static String normalize(String sql) {
+		String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+		normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+		normalized = IN_LIST.matcher(normalized).replaceAll("IN (?)");
+		return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+	}
+
+	static boolean isRepeatMark(long count) {
+		for (long mark = FIRST_REPEAT_MARK; mark > 0 && mark <= count; mark *= 10) {
+			if (mark == count) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the innermost frames of the current stack, which are not from the database or persistence layers
+	 */
+	static String getStackSample() {
+		StringBuilder sample = new StringBuilder();
+		int frames = 0;
+		for (StackTraceElement element : new Throwable().getStackTrace()) {
+			if (frames >= STACK_DEPTH) {
+				break;
+			}
+			if (isIgnored(element.getClassName())) {
+				continue;
+			}
+			sample.append("\tat ").append(element).append(System.lineSeparator());
+			frames++;
+		}
+		return sample.toString();
+	}
+
+	private static boolean isIgnored(String className) {
+		for (String prefix : IGNORED_FRAMES) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void writeSummary() {
+		List<Map.Entry<String, Stats>> entries = new ArrayList<>(stats.entrySet());
+		if (entries.isEmpty()) {
+			return;
+		}
+		entries.sort((a, b) -> Long.compare(b.getValue().count.get(), a.getValue().count.get()));
+
+		StringBuilder summary = new StringBuilder(String.format("%s SUMMARY of the %d most frequent of %d statements:%n",
+				Instant.now(), Math.min(SUMMARY_SIZE, entries.size()), entries.size()));
+		summary.append(String.format("%10s %12s %10s  %s%n", "Count", "Total [ms]", "Max [ms]", "Statement"));
+		for (Map.Entry<String, Stats> entry : entries.subList(0, Math.min(SUMMARY_SIZE, entries.size()))) {
+			Stats statementStats = entry.getValue();
+			summary.append(String.format("%10d %12.1f %10.1f  %s%n", statementStats.count.get(),
+					statementStats.totalNanos.sum() / 1000000.0, statementStats.maxNanos.get() / 1000000.0,
+					entry.getKey()));
+		}
+		write(summary.toString());
+	}
+
+	private synchronized void write(String entry) {
+		try {
+			if (file.length() > MAX_FILE_SIZE) {
+				rotate();
+			}
+			try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+				writer.println(entry);
+			}
+		}
+		catch (IOException e) {
+			// logging must never fail a statement
+		}
+	}
+
+	/**
+	 * Renames sql.log to sql.log.1, sql.log.1 to sql.log.2 and so on, deleting the oldest file
+	 */
+	private void rotate() {
+		File oldest = new File(file.getPath() + "." + (MAX_FILES - 1));
+		oldest.delete();
+		for (int i = MAX_FILES - 2; i >= 1; i--) {
+			new File(file.getPath() + "." + i).renameTo(new File(file.getPath() + "." + (i + 1)));
+		}
+		file.renameTo(new File(file.getPath() + ".1"));
+	}
+
+	private static class Stats {
+
+		// each count is returned to exactly one execution, so that each repeat mark is logged once
+		private final AtomicLong count = new AtomicLong();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		long add(long nanos) {
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			return count.incrementAndGet();
+		}
+	}
+}
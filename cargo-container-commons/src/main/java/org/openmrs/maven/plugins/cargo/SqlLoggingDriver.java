@@ -0,0 +1,212 @@
+package org.openmrs.maven.plugins.cargo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver, which passes connections through to the MySQL or PostgreSQL driver of the OpenMRS WAR and records
+ * the statements executed on them in the {@link SqlLog}. It accepts the database uri with the
+ * {@link #URL_PREFIX} in place of "jdbc:", which the container runner writes to openmrs-runtime.properties
+ * when the server has SQL logging enabled.
+ * <p>
+ * The driver is on the classpath of the container and the driver of the database is in the WAR, so the driver
+ * of the database is loaded through the context class loader of the thread connecting, which is the one of the
+ * webapp, instead of being looked up with the DriverManager.
+ */
+public class SqlLoggingDriver implements Driver {
+
+	public static final String URL_PREFIX = "jdbc:openmrs-sdk-sql-log:";
+
+	static final String DELEGATE_DRIVER_PROPERTY = "openmrs.sdk.sqlLog.driver";
+
+	private static final String JDBC_PREFIX = "jdbc:";
+
+	static {
+		try {
+			DriverManager.registerDriver(new SqlLoggingDriver());
+		}
+		catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * @return the uri connecting through this driver
+	 */
+	public static String toLoggingUrl(String url) {
+		if (url.startsWith(URL_PREFIX) || !url.startsWith(JDBC_PREFIX)) {
+			return url;
+		}
+		return URL_PREFIX + url.substring(JDBC_PREFIX.length());
+	}
+
+	/**
+	 * @return the uri of the database without this driver
+	 */
+	public static String toDelegateUrl(String url) {
+		if (!url.startsWith(URL_PREFIX)) {
+			return url;
+		}
+		return JDBC_PREFIX + url.substring(URL_PREFIX.length());
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException {
+		if (!acceptsURL(url)) {
+			return null;
+		}
+		Connection connection = getDelegate(url).connect(toDelegateUrl(url), info);
+		return connection != null ? wrap(connection) : null;
+	}
+
+	@Override
+	public boolean acceptsURL(String url) {
+		return url != null && url.startsWith(URL_PREFIX);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+		return getDelegate(url).getPropertyInfo(toDelegateUrl(url), info);
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	private static Driver getDelegate(String url) throws SQLException {
+		String driverClass = System.getProperty(DELEGATE_DRIVER_PROPERTY);
+		if (driverClass == null) {
+			driverClass = toDelegateUrl(url).startsWith("jdbc:postgresql:") ? "org.postgresql.Driver"
+					: "com.mysql.cj.jdbc.Driver";
+		}
+
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		try {
+			Class<?> driver;
+			try {
+				driver = Class.forName(driverClass, true, contextClassLoader != null ? contextClassLoader
+						: SqlLoggingDriver.class.getClassLoader());
+			}
+			catch (ClassNotFoundException e) {
+				driver = Class.forName(driverClass);
+			}
+			return (Driver) driver.getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new SQLException("Unable to load the " + driverClass + " driver to log SQL statements", e);
+		}
+	}
+
+	static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(SqlLoggingDriver.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+	}
+
+	private static Object invoke(Object target, Object proxy, Method method, Object[] args) throws Throwable {
+		// pools keep track of connections and statements by identity
+		if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+			return proxy == args[0];
+		}
+		if ("hashCode".equals(method.getName()) && (args == null || args.length == 0)) {
+			return System.identityHashCode(proxy);
+		}
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+
+		private final Connection connection;
+
+		ConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = SqlLoggingDriver.invoke(connection, proxy, method, args);
+			if (result instanceof Statement) {
+				String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+				Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+						: result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+				return Proxy.newProxyInstance(SqlLoggingDriver.class.getClassLoader(), new Class<?>[] { type },
+						new StatementHandler((Statement) result, sql, (Connection) proxy));
+			}
+			return result;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+
+		private final Statement statement;
+
+		private final String preparedSql;
+
+		private final Connection connection;
+
+		private volatile String batchSql;
+
+		StatementHandler(Statement statement, String preparedSql, Connection connection) {
+			this.statement = statement;
+			this.preparedSql = preparedSql;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("getConnection".equals(name)) {
+				return connection;
+			}
+			if ("addBatch".equals(name) && args != null && args.length == 1) {
+				batchSql = (String) args[0];
+			}
+			if (!name.startsWith("execute")) {
+				return SqlLoggingDriver.invoke(statement, proxy, method, args);
+			}
+
+			String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+					: preparedSql != null ? preparedSql : batchSql;
+			long start = System.nanoTime();
+			try {
+				return SqlLoggingDriver.invoke(statement, proxy, method, args);
+			}
+			finally {
+				SqlLog.get().record(sql, System.nanoTime() - start);
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package org.openmrs.maven.plugins.cargo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Follows the OpenMRS log while the server starts and records when the start-up markers appear in it,
+ * e.g. when each module starts or when Liquibase runs. Lines are timestamped when they are read, which is
+ * independent of the log format configured for the server.
+ */
+public class StartupLogMonitor implements AutoCloseable {
+
+	public static final String LOG_FILE = "openmrs.log";
+
+	/**
+	 * "Starting module: {moduleId}" logged by ModuleFactory
+	 */
+	static final Pattern MODULE_START = Pattern.compile("\\bStarting module: ([\\w.\\-]+)");
+
+	/**
+	 * Lines logged by the module framework or a module activator while modules start
+	 */
+	static final Pattern MODULE_LINE = Pattern.compile(
+			"\\b(?:ModuleFactory|ModuleUtil|ModuleClassLoader|\\w+Activator)\\.\\w+\\(|\\bStarting module: ");
+
+	/**
+	 * Phases which last from the first to the last line matching the pattern. The patterns match the messages
+	 * logged by Spring, Liquibase and the Initializer module, both with the class names of the default OpenMRS
+	 * log layout and with full logger names.
+	 */
+	static final Map<String, Pattern> SPAN_MARKERS = new LinkedHashMap<>();
+
+	static {
+		SPAN_MARKERS.put("Spring context refresh", Pattern.compile(
+				"Root WebApplicationContext: initialization (?:started|completed)"
+						+ "|Refreshing (?:Root WebApplicationContext|org\\.springframework\\.\\S*ApplicationContext)"));
+		SPAN_MARKERS.put("Liquibase", Pattern.compile(
+				"Successfully (?:acquired|released) change log lock"
+						+ "|ChangeSet \\S+::\\S+::\\S+ ran successfully"
+						+ "|Reading from \\S*DATABASECHANGELOG"));
+		SPAN_MARKERS.put("Initializer", Pattern.compile(
+				"org\\.openmrs\\.module\\.initializer\\."
+						+ "|\\b(?:InitializerActivator|InitializerServiceImpl|Base\\w*Loader)\\.\\w+\\("));
+	}
+
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final File logFile;
+
+	private final Map<String, long[]> spans = new LinkedHashMap<>();
+
+	private final List<String> moduleNames = new ArrayList<>();
+
+	private final List<Long> moduleStarts = new ArrayList<>();
+
+	private long lastModuleLine;
+
+	private long firstLine;
+
+	private long offset;
+
+	private String partialLine = "";
+
+	private Thread thread;
+
+	private volatile boolean running;
+
+	public StartupLogMonitor(File logFile) {
+		this.logFile = logFile;
+	}
+
+	/**
+	 * Starts following the log from its current end
+	 */
+	public void start() {
+		offset = logFile.exists() ? logFile.length() : 0;
+		running = true;
+		thread = new Thread(() -> {
+			while (running) {
+				poll();
+				try {
+					Thread.sleep(POLL_INTERVAL_MILLIS);
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+			}
+		}, "openmrs-startup-log-monitor");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(1000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		poll();
+	}
+
+	/**
+	 * @return the time the first line was logged during the start or 0 if nothing was logged
+	 */
+	public synchronized long getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * Adds the phases found in the log to the timeline
+	 */
+	public synchronized void addTo(StartupTimeline timeline) {
+		for (Map.Entry<String, long[]> span : spans.entrySet()) {
+			timeline.add(span.getKey(), span.getValue()[0], span.getValue()[1]);
+		}
+		for (int i = 0; i < moduleStarts.size(); i++) {
+			long end = i + 1 < moduleStarts.size() ? moduleStarts.get(i + 1) : lastModuleLine;
+			timeline.add("Module " + moduleNames.get(i), moduleStarts.get(i), end);
+		}
+	}
+
+	synchronized void poll() {
+		if (!logFile.exists()) {
+			return;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+			if (file.length() < offset) {
+				// the log was rolled over
+				offset = 0;
+			}
+			if (file.length() == offset) {
+				return;
+			}
+			byte[] bytes = new byte[(int) Math.min(file.length() - offset, 4 * 1024 * 1024)];
+			file.seek(offset);
+			file.readFully(bytes);
+			offset += bytes.length;
+
+			long now = System.currentTimeMillis();
+			String[] lines = (partialLine + new String(bytes, StandardCharsets.UTF_8)).split("\\r?\\n", -1);
+			for (int i = 0; i < lines.length - 1; i++) {
+				processLine(lines[i], now);
+			}
+			partialLine = lines[lines.length - 1];
+		}
+		catch (IOException e) {
+			// the log is only informative, try again on the next poll
+		}
+	}
+
+	void processLine(String line, long time) {
+		if (firstLine == 0) {
+			firstLine = time;
+		}
+		for (Map.Entry<String, Pattern> marker : SPAN_MARKERS.entrySet()) {
+			if (marker.getValue().matcher(line).find()) {
+				long[] span = spans.get(marker.getKey());
+				if (span == null) {
+					spans.put(marker.getKey(), new long[] { time, time });
+				} else {
+					span[1] = time;
+				}
+			}
+		}
+		Matcher moduleStart = MODULE_START.matcher(line);
+		if (moduleStart.find()) {
+			moduleNames.add(moduleStart.group(1));
+			moduleStarts.add(time);
+		}
+		if (MODULE_LINE.matcher(line).find()) {
+			lastModuleLine = time;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package org.openmrs.maven.plugins.cargo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the phases of a server start, so that it can be reported where the start-up time goes.
+ * All times are in milliseconds since the epoch.
+ */
+public class StartupTimeline {
+
+	public static final String TIMELINE_FILE = "startup-timeline.json";
+
+	private final long start;
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	public StartupTimeline(long start) {
+		this.start = start;
+	}
+
+	public synchronized void add(String name, long phaseStart, long phaseEnd) {
+		if (phaseEnd >= phaseStart) {
+			phases.add(new Phase(name, phaseStart, phaseEnd));
+		}
+	}
+
+	public synchronized List<Phase> getPhases() {
+		List<Phase> sorted = new ArrayList<>(phases);
+		sorted.sort(Comparator.comparingLong(Phase::getStart));
+		return sorted;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the phases formatted as a table with the offset from the beginning and the duration of each phase
+	 */
+	public String toTable(long end) {
+		List<Phase> sorted = getPhases();
+		int nameWidth = "Phase".length();
+		for (Phase phase : sorted) {
+			nameWidth = Math.max(nameWidth, phase.getName().length());
+		}
+
+		StringBuilder table = new StringBuilder();
+		String format = "%-" + nameWidth + "s  %9s  %9s%n";
+		table.append(String.format(format, "Phase", "Start [s]", "Took [s]"));
+		table.append(StringUtils.repeat("-", nameWidth + 22)).append(System.lineSeparator());
+		for (Phase phase : sorted) {
+			table.append(String.format(format, phase.getName(), seconds(phase.getStart() - start),
+					seconds(phase.getEnd() - phase.getStart())));
+		}
+		table.append(StringUtils.repeat("-", nameWidth + 22)).append(System.lineSeparator());
+		table.append(String.format(format, "Total", seconds(0), seconds(end - start)));
+		return table.toString();
+	}
+
+	public void writeJson(File file, long end) throws MojoExecutionException {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("start", start);
+		json.put("end", end);
+		json.put("totalMillis", end - start);
+		List<Map<String, Object>> phasesJson = new ArrayList<>();
+		for (Phase phase : getPhases()) {
+			Map<String, Object> phaseJson = new LinkedHashMap<>();
+			phaseJson.put("name", phase.getName());
+			phaseJson.put("offsetMillis", phase.getStart() - start);
+			phaseJson.put("durationMillis", phase.getEnd() - phase.getStart());
+			phasesJson.add(phaseJson);
+		}
+		json.put("phases", phasesJson);
+
+		try {
+			new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, json);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to write start-up timeline to " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static String seconds(long millis) {
+		return String.format(Locale.ROOT, "%.1f", millis / 1000.0);
+	}
+
+	public static class Phase {
+
+		private final String name;
+
+		private final long start;
+
+		private final long end;
+
+		public Phase(String name, long start, long end) {
+			this.name = name;
+			this.start = start;
+			this.end = end;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+	}
+}
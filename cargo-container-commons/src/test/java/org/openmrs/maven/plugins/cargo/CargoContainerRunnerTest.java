@@ -0,0 +1,106 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.PropertiesUtils;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+import java.io.File;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class CargoContainerRunnerTest {
+
+	private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/openmrs?autoReconnect=true";
+
+	private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private Server server;
+
+	private File runtimePropertiesFile;
+
+	private CargoContainerRunner runner;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new Server.ServerBuilder().setServerId("server").setDbUri(MYSQL_URL).setDbDriver(MYSQL_DRIVER).build();
+		server.setServerDirectory(tempDir.newFolder("server"));
+		runtimePropertiesFile = new File(server.getServerDirectory(), CargoContainerRunner.RUNTIME_PROPERTIES_FILE);
+		runner = new CargoContainerRunner("tomcat9x", "server", 8080, false, null, mock(Wizard.class));
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY);
+		System.clearProperty(SqlLog.FILE_PROPERTY);
+		System.clearProperty(SqlLog.THRESHOLD_PROPERTY);
+	}
+
+	@Test
+	public void configureSqlLog_shouldConnectThroughTheLoggingDriver() throws Exception {
+		writeRuntimeProperties(MYSQL_URL, MYSQL_DRIVER);
+		server.setSqlLog(true);
+		server.setSqlLogThreshold("250");
+
+		runner.configureSqlLog(server);
+
+		Properties properties = PropertiesUtils.loadPropertiesFromFile(runtimePropertiesFile);
+		assertEquals(SqlLoggingDriver.toLoggingUrl(MYSQL_URL), properties.getProperty(CargoContainerRunner.CONNECTION_URL));
+		assertEquals(SqlLoggingDriver.class.getName(), properties.getProperty(CargoContainerRunner.CONNECTION_DRIVER_CLASS));
+		assertEquals(MYSQL_DRIVER, System.getProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY));
+		assertEquals(new File(server.getServerDirectory(), SqlLog.LOG_FILE).getAbsolutePath(),
+				System.getProperty(SqlLog.FILE_PROPERTY));
+		assertEquals("250", System.getProperty(SqlLog.THRESHOLD_PROPERTY));
+	}
+
+	@Test
+	public void configureSqlLog_shouldKeepTheDelegateDriverOnLaterStarts() throws Exception {
+		writeRuntimeProperties(SqlLoggingDriver.toLoggingUrl(MYSQL_URL), SqlLoggingDriver.class.getName());
+		server.setSqlLog(true);
+
+		runner.configureSqlLog(server);
+
+		assertEquals(MYSQL_DRIVER, System.getProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY));
+		assertEquals(String.valueOf(SqlLog.DEFAULT_THRESHOLD_MILLIS), System.getProperty(SqlLog.THRESHOLD_PROPERTY));
+	}
+
+	@Test
+	public void configureSqlLog_shouldRestoreTheDatabaseDriverWhenDisabled() throws Exception {
+		writeRuntimeProperties(SqlLoggingDriver.toLoggingUrl(MYSQL_URL), SqlLoggingDriver.class.getName());
+
+		runner.configureSqlLog(server);
+
+		Properties properties = PropertiesUtils.loadPropertiesFromFile(runtimePropertiesFile);
+		assertEquals(MYSQL_URL, properties.getProperty(CargoContainerRunner.CONNECTION_URL));
+		assertEquals(MYSQL_DRIVER, properties.getProperty(CargoContainerRunner.CONNECTION_DRIVER_CLASS));
+		assertNull(System.getProperty(SqlLoggingDriver.DELEGATE_DRIVER_PROPERTY));
+	}
+
+	@Test
+	public void configureSqlLog_shouldNotChangeTheDatabaseWhenDisabled() throws Exception {
+		writeRuntimeProperties(MYSQL_URL, MYSQL_DRIVER);
+		long lastModified = runtimePropertiesFile.lastModified();
+		runtimePropertiesFile.setLastModified(lastModified - 10000);
+
+		runner.configureSqlLog(server);
+
+		assertEquals(lastModified - 10000, runtimePropertiesFile.lastModified());
+	}
+
+	private void writeRuntimeProperties(String url, String driver) throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(CargoContainerRunner.CONNECTION_URL, url);
+		properties.setProperty(CargoContainerRunner.CONNECTION_DRIVER_CLASS, driver);
+		PropertiesUtils.savePropertiesChangesToFile(properties, runtimePropertiesFile);
+	}
+}
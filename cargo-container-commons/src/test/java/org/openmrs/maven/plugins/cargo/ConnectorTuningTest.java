@@ -0,0 +1,177 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ConnectorTuningTest {
+
+	private Wizard wizard;
+
+	@Before
+	public void setUp() {
+		wizard = mock(Wizard.class);
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(ConnectorTuning.COMPRESSION_PROPERTY);
+		System.clearProperty(ConnectorTuning.KEEP_ALIVE_TIMEOUT_PROPERTY);
+		System.clearProperty(ConnectorTuning.MAX_THREADS_PROPERTY);
+		System.clearProperty(ConnectorTuning.VIRTUAL_THREADS_PROPERTY);
+	}
+
+	@Test
+	public void getTomcatAttributes_shouldUseTheOriginalSpellingForTomcat7() {
+		Map<String, String> attributes = getTomcatAttributes("tomcat7x");
+
+		assertEquals("on", attributes.get("compression"));
+		assertEquals(ConnectorTuning.COMPRESSIBLE_MIME_TYPES, attributes.get("compressableMimeType"));
+		assertFalse(attributes.containsKey("compressibleMimeType"));
+	}
+
+	@Test
+	public void getTomcatAttributes_shouldUseTheNewSpellingForLaterTomcats() {
+		for (String containerId : new String[] { "tomcat8x", "tomcat9x", "tomcat10x", "tomcat11x" }) {
+			Map<String, String> attributes = getTomcatAttributes(containerId);
+
+			assertEquals(containerId, "on", attributes.get("compression"));
+			assertEquals(containerId, "1024", attributes.get("compressionMinSize"));
+			assertEquals(containerId, ConnectorTuning.COMPRESSIBLE_MIME_TYPES, attributes.get("compressibleMimeType"));
+			assertFalse(containerId, attributes.containsKey("compressableMimeType"));
+		}
+	}
+
+	@Test
+	public void getTomcatAttributes_shouldLeaveOutCompressionIfDisabled() {
+		System.setProperty(ConnectorTuning.COMPRESSION_PROPERTY, "false");
+
+		Map<String, String> attributes = getTomcatAttributes("tomcat9x");
+
+		assertFalse(attributes.containsKey("compression"));
+		assertFalse(attributes.containsKey("compressibleMimeType"));
+		assertEquals(ConnectorTuning.DEFAULT_KEEP_ALIVE_TIMEOUT, attributes.get("keepAliveTimeout"));
+	}
+
+	@Test
+	public void getTomcatAttributes_shouldKeepConnectionsAlive() {
+		Map<String, String> attributes = getTomcatAttributes("tomcat9x");
+		assertEquals(ConnectorTuning.DEFAULT_KEEP_ALIVE_TIMEOUT, attributes.get("keepAliveTimeout"));
+		assertEquals("-1", attributes.get("maxKeepAliveRequests"));
+
+		System.setProperty(ConnectorTuning.KEEP_ALIVE_TIMEOUT_PROPERTY, "20000");
+		assertEquals("20000", getTomcatAttributes("tomcat9x").get("keepAliveTimeout"));
+	}
+
+	@Test
+	public void getTomcatAttributes_shouldOnlySetMaxThreadsIfRequested() {
+		assertNull(getTomcatAttributes("tomcat9x").get("maxThreads"));
+
+		System.setProperty(ConnectorTuning.MAX_THREADS_PROPERTY, " ");
+		assertNull(getTomcatAttributes("tomcat9x").get("maxThreads"));
+
+		System.setProperty(ConnectorTuning.MAX_THREADS_PROPERTY, "400");
+		assertEquals("400", getTomcatAttributes("tomcat9x").get("maxThreads"));
+	}
+
+	@Test
+	public void isVirtualThreadsRequested_shouldBeFalseUnlessRequested() {
+		assertFalse(new ConnectorTuning("tomcat11x", 8080, wizard).isVirtualThreadsRequested());
+
+		verify(wizard, never()).showMessage(anyString());
+	}
+
+	@Test
+	public void isVirtualThreadsRequested_shouldRequireTomcat11() {
+		System.setProperty(ConnectorTuning.VIRTUAL_THREADS_PROPERTY, "true");
+
+		for (String containerId : new String[] { "tomcat9x", "tomcat10x", "jetty9x" }) {
+			assertFalse(containerId, new ConnectorTuning(containerId, 8080, wizard).isVirtualThreadsRequested());
+		}
+		assertEquals(ConnectorTuning.getJavaMajorVersion() >= 21,
+				new ConnectorTuning("tomcat11x", 8080, wizard).isVirtualThreadsRequested());
+	}
+
+	@Test
+	public void apply_shouldSetTheIdleTimeoutAndThreadPoolOfJetty() {
+		System.setProperty(ConnectorTuning.KEEP_ALIVE_TIMEOUT_PROPERTY, "20000");
+		System.setProperty(ConnectorTuning.MAX_THREADS_PROPERTY, "400");
+		JettyContainer container = new JettyContainer();
+
+		new ConnectorTuning("jetty9x", 8080, wizard).apply(container);
+
+		assertEquals(20000, container.server.connector.idleTimeout);
+		assertEquals(400, container.server.threadPool.maxThreads);
+		verify(wizard).showMessage("Tuned the jetty9x connectors: idle timeout 20000 ms, max threads 400");
+	}
+
+	@Test
+	public void apply_shouldKeepTheDefaultsIfTuningFails() {
+		System.setProperty(ConnectorTuning.KEEP_ALIVE_TIMEOUT_PROPERTY, "forever");
+
+		new ConnectorTuning("jetty9x", 8080, wizard).apply(new JettyContainer());
+
+		verify(wizard).showMessage("Unable to tune the jetty9x connector: For input string: \"forever\"");
+	}
+
+	private Map<String, String> getTomcatAttributes(String containerId) {
+		return new ConnectorTuning(containerId, 8080, wizard).getTomcatAttributes();
+	}
+
+	/**
+	 * Has the methods of the embedded Jetty container which are used through reflection
+	 */
+	public static class JettyContainer {
+
+		private final JettyServer server = new JettyServer();
+
+		public JettyServer getServer() {
+			return server;
+		}
+	}
+
+	public static class JettyServer {
+
+		private final JettyConnector connector = new JettyConnector();
+
+		private final JettyThreadPool threadPool = new JettyThreadPool();
+
+		public Object[] getConnectors() {
+			return new Object[] { connector };
+		}
+
+		public JettyThreadPool getThreadPool() {
+			return threadPool;
+		}
+	}
+
+	public static class JettyConnector {
+
+		private long idleTimeout;
+
+		public void setIdleTimeout(long idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+	}
+
+	public static class JettyThreadPool {
+
+		private int maxThreads;
+
+		public void setMaxThreads(int maxThreads) {
+			this.maxThreads = maxThreads;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExplodedWarCacheTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File warFile;
+
+	private File cacheDir;
+
+	private ExplodedWarCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		warFile = new File(tempDir.getRoot(), "openmrs.war");
+		cacheDir = new File(tempDir.getRoot(), "cache");
+		cache = new ExplodedWarCache(cacheDir);
+	}
+
+	@Test
+	public void sha1_shouldReturnTheChecksumOfTheFile() throws Exception {
+		File file = tempDir.newFile("abc.txt");
+		FileUtils.writeStringToFile(file, "abc", StandardCharsets.UTF_8);
+
+		assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", ExplodedWarCache.sha1(file));
+	}
+
+	@Test
+	public void getExplodedWar_shouldExplodeTheWarKeyedByItsChecksum() throws Exception {
+		writeWar("index.html", "<html/>", "WEB-INF/web.xml", "<web-app/>");
+
+		File webappDir = cache.getExplodedWar(warFile);
+
+		assertEquals(new File(cacheDir, ExplodedWarCache.WEBAPP_DIR), webappDir);
+		assertEquals("<html/>", read(new File(webappDir, "index.html")));
+		assertEquals("<web-app/>", read(new File(webappDir, "WEB-INF/web.xml")));
+		assertEquals(ExplodedWarCache.sha1(warFile), readState().getProperty("checksum"));
+	}
+
+	@Test
+	public void getExplodedWar_shouldRestoreTheContentOfTheWar() throws Exception {
+		writeWar("index.html", "<html/>", "WEB-INF/web.xml", "<web-app/>");
+		File webappDir = cache.getExplodedWar(warFile);
+		File moduleResource = new File(webappDir, "WEB-INF/view/module/legacyui/portlet.jsp");
+		FileUtils.writeStringToFile(moduleResource, "<p/>", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(webappDir, "index.html"), "<html>changed</html>", StandardCharsets.UTF_8);
+		FileUtils.forceDelete(new File(webappDir, "WEB-INF/web.xml"));
+
+		assertEquals(webappDir, cache.getExplodedWar(warFile));
+
+		assertFalse(moduleResource.exists());
+		assertEquals("<html/>", read(new File(webappDir, "index.html")));
+		assertEquals("<web-app/>", read(new File(webappDir, "WEB-INF/web.xml")));
+	}
+
+	@Test
+	public void getExplodedWar_shouldKeepFilesWhichAreUnchanged() throws Exception {
+		writeWar("index.html", "<html/>");
+		File index = new File(cache.getExplodedWar(warFile), "index.html");
+		String manifest = read(new File(cacheDir, ExplodedWarCache.MANIFEST_FILE));
+
+		cache.getExplodedWar(warFile);
+
+		assertEquals(manifest, read(new File(cacheDir, ExplodedWarCache.MANIFEST_FILE)));
+		assertTrue(index.exists());
+	}
+
+	@Test
+	public void getExplodedWar_shouldExplodeAChangedWarAgain() throws Exception {
+		writeWar("index.html", "<html/>");
+		File webappDir = cache.getExplodedWar(warFile);
+		String checksum = readState().getProperty("checksum");
+
+		writeWar("login.html", "<form/>");
+		warFile.setLastModified(warFile.lastModified() + 10000);
+		cache.getExplodedWar(warFile);
+
+		assertFalse(new File(webappDir, "index.html").exists());
+		assertEquals("<form/>", read(new File(webappDir, "login.html")));
+		assertFalse(checksum.equals(readState().getProperty("checksum")));
+		assertEquals(ExplodedWarCache.sha1(warFile), readState().getProperty("checksum"));
+	}
+
+	private void writeWar(String... namesAndContents) throws Exception {
+		try (OutputStream out = Files.newOutputStream(warFile.toPath()); ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (int i = 0; i < namesAndContents.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+				zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+	}
+
+	private Properties readState() throws Exception {
+		Properties state = new Properties();
+		try (InputStream in = Files.newInputStream(new File(cacheDir, ExplodedWarCache.STATE_FILE).toPath())) {
+			state.load(in);
+		}
+		return state;
+	}
+
+	private static String read(File file) throws Exception {
+		return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+	}
+}
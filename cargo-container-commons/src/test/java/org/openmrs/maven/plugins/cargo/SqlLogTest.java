@@ -0,0 +1,115 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SqlLogTest {
+
+	private static final long FAST = 1000000;
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File logFile;
+
+	private SqlLog log;
+
+	@Before
+	public void setUp() throws Exception {
+		logFile = new File(tempDir.getRoot(), SqlLog.LOG_FILE);
+		log = new SqlLog(logFile, 100);
+	}
+
+	@Test
+	public void normalize_shouldReplaceLiterals() {
+		assertEquals("select * from person where person_id = ? and gender = ?",
+				SqlLog.normalize("select * from person\n  where person_id = 12 and gender = 'M'"));
+		assertEquals("select * from obs where value_text = ?", SqlLog.normalize("select * from obs where value_text = 'it''s'"));
+	}
+
+	@Test
+	public void normalize_shouldCollapseInLists() {
+		assertEquals("select * from obs where obs_id IN (?)", SqlLog.normalize("select * from obs where obs_id in (1, 2, 3)"));
+		assertEquals("select * from obs where obs_id IN (?)", SqlLog.normalize("select * from obs where obs_id IN (?,?)"));
+		assertEquals("select * from obs where uuid IN (?) and voided = ?",
+				SqlLog.normalize("select * from obs where uuid in ( 'a' , 'b' ) and voided = 0"));
+	}
+
+	@Test
+	public void isRepeatMark_shouldBeTrueForPowersOfTenFromTheFirstMark() {
+		assertTrue(SqlLog.isRepeatMark(100));
+		assertTrue(SqlLog.isRepeatMark(1000));
+		assertTrue(SqlLog.isRepeatMark(10000000000L));
+		assertFalse(SqlLog.isRepeatMark(1));
+		assertFalse(SqlLog.isRepeatMark(10));
+		assertFalse(SqlLog.isRepeatMark(101));
+		assertFalse(SqlLog.isRepeatMark(5000));
+		assertFalse(SqlLog.isRepeatMark(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void record_shouldLogRepeatedStatementsAtEachMark() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			log.record("select * from person where person_id = " + i, FAST);
+		}
+
+		List<String> repeated = getLines("REPEATED");
+		assertEquals(2, repeated.size());
+		assertTrue(repeated.get(0).contains("REPEATED 100 times"));
+		assertTrue(repeated.get(0).endsWith("select * from person where person_id = 99"));
+		assertTrue(repeated.get(1).contains("REPEATED 1000 times"));
+	}
+
+	@Test
+	public void record_shouldLogSlowStatementsWithTheirCount() throws Exception {
+		log.record("select * from obs", FAST);
+		log.record("select * from obs", 250 * FAST);
+
+		List<String> slow = getLines("SLOW");
+		assertEquals(1, slow.size());
+		assertTrue(slow.get(0).contains("SLOW 250 ms (executed 2 times): select * from obs"));
+	}
+
+	@Test
+	public void record_shouldCountStatementsBeyondTheLimitTogether() throws Exception {
+		for (int i = 0; i < SqlLog.MAX_STATEMENTS; i++) {
+			log.record("select * from table_" + i, FAST);
+		}
+		for (int i = 0; i < 200; i++) {
+			log.record("select * from other_" + i, FAST);
+			log.record("select * from other_" + i, FAST);
+		}
+		log.record("select * from another_table", 250 * FAST);
+		log.writeSummary();
+
+		assertTrue(getLines("REPEATED").isEmpty());
+		List<String> slow = getLines("SLOW");
+		assertEquals(1, slow.size());
+		assertTrue(slow.get(0).contains("SLOW 250 ms: select * from another_table"));
+		List<String> summary = getLines(SqlLog.OTHER_STATEMENTS);
+		assertEquals(1, summary.size());
+		assertTrue(summary.get(0).trim().startsWith("401 "));
+		assertTrue(getLines("SUMMARY").get(0).contains("of " + (SqlLog.MAX_STATEMENTS + 1) + " statements"));
+	}
+
+	private List<String> getLines(String text) throws Exception {
+		if (!logFile.exists()) {
+			return Collections.emptyList();
+		}
+		return FileUtils.readLines(logFile, StandardCharsets.UTF_8).stream().filter(line -> line.contains(text))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,43 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SqlLoggingDriverTest {
+
+	private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/openmrs?autoReconnect=true";
+
+	@Test
+	public void toLoggingUrl_shouldReplaceTheJdbcPrefix() {
+		assertEquals("jdbc:openmrs-sdk-sql-log:mysql://localhost:3306/openmrs?autoReconnect=true",
+				SqlLoggingDriver.toLoggingUrl(MYSQL_URL));
+		assertEquals("jdbc:openmrs-sdk-sql-log:postgresql://db:5432/openmrs",
+				SqlLoggingDriver.toLoggingUrl("jdbc:postgresql://db:5432/openmrs"));
+	}
+
+	@Test
+	public void toLoggingUrl_shouldNotChangeALoggingOrUnknownUrl() {
+		String loggingUrl = SqlLoggingDriver.toLoggingUrl(MYSQL_URL);
+
+		assertEquals(loggingUrl, SqlLoggingDriver.toLoggingUrl(loggingUrl));
+		assertEquals("mysql://localhost/openmrs", SqlLoggingDriver.toLoggingUrl("mysql://localhost/openmrs"));
+	}
+
+	@Test
+	public void toDelegateUrl_shouldRestoreTheUrl() {
+		assertEquals(MYSQL_URL, SqlLoggingDriver.toDelegateUrl(SqlLoggingDriver.toLoggingUrl(MYSQL_URL)));
+		assertEquals(MYSQL_URL, SqlLoggingDriver.toDelegateUrl(MYSQL_URL));
+	}
+
+	@Test
+	public void acceptsURL_shouldOnlyAcceptLoggingUrls() {
+		SqlLoggingDriver driver = new SqlLoggingDriver();
+
+		assertTrue(driver.acceptsURL(SqlLoggingDriver.toLoggingUrl(MYSQL_URL)));
+		assertFalse(driver.acceptsURL(MYSQL_URL));
+		assertFalse(driver.acceptsURL(null));
+	}
+}
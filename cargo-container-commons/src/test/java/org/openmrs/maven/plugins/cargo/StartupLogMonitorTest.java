@@ -0,0 +1,140 @@
+package org.openmrs.maven.plugins.cargo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StartupLogMonitorTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File logFile;
+
+	private StartupLogMonitor monitor;
+
+	@Before
+	public void setUp() throws Exception {
+		logFile = new File(tempDir.getRoot(), StartupLogMonitor.LOG_FILE);
+		monitor = new StartupLogMonitor(logFile);
+	}
+
+	@Test
+	public void spanMarkers_shouldMatchTheSpringContextRefresh() {
+		assertMarker("Spring context refresh", " INFO - ContextLoader.initWebApplicationContext(285) |2023-05-10T10:15:01,001| "
+				+ "Root WebApplicationContext: initialization started");
+		assertMarker("Spring context refresh", " INFO - XmlWebApplicationContext.prepareRefresh(590) |2023-05-10T10:15:01,020| "
+				+ "Refreshing Root WebApplicationContext: startup date [Wed May 10 10:15:01 UTC 2023]; root of context hierarchy");
+		assertMarker("Spring context refresh", "2024-03-01 10:00:01,020 INFO  [main] "
+				+ "org.springframework.web.context.support.XmlWebApplicationContext - "
+				+ "Refreshing org.springframework.web.context.support.XmlWebApplicationContext@6d4b1c02");
+		assertMarker("Spring context refresh", " INFO - ContextLoader.initWebApplicationContext(307) |2023-05-10T10:16:48,114| "
+				+ "Root WebApplicationContext: initialization completed in 107113 ms");
+	}
+
+	@Test
+	public void spanMarkers_shouldMatchLiquibase() {
+		assertMarker("Liquibase", " INFO - LoggingUtils.info(63) |2023-05-10T10:15:10,200| Successfully acquired change log lock");
+		assertMarker("Liquibase", " INFO - LoggingUtils.info(63) |2023-05-10T10:15:10,310| "
+				+ "Reading from openmrs.DATABASECHANGELOG");
+		assertMarker("Liquibase", "2024-03-01 10:00:10,412 INFO  [main] liquibase.changelog - ChangeSet "
+				+ "org/openmrs/liquibase/updates/liquibase-update-to-latest-2.6.x.xml::20220422-1100::dkayiwa "
+				+ "ran successfully in 12ms");
+		assertMarker("Liquibase", " INFO - LoggingUtils.info(63) |2023-05-10T10:15:30,001| Successfully released change log lock");
+	}
+
+	@Test
+	public void spanMarkers_shouldMatchTheInitializer() {
+		assertMarker("Initializer", " INFO - InitializerActivator.started(52) |2023-05-10T10:16:10,000| "
+				+ "Start of Initializer module.");
+		assertMarker("Initializer", " INFO - BaseLineProcessorLoader.load(84) |2023-05-10T10:16:11,500| "
+				+ "The 'concepts' domain was loaded");
+		assertMarker("Initializer", "2024-03-01 10:01:11,500 INFO  [main] "
+				+ "org.openmrs.module.initializer.api.loaders.LocationsLoader - The 'locations' domain was loaded");
+	}
+
+	@Test
+	public void spanMarkers_shouldNotMatchOtherLines() {
+		String line = " INFO - ServiceContext.setApplicationContext(190) |2023-05-10T10:15:02,000| Refreshing the service context";
+		for (Map.Entry<String, Pattern> marker : StartupLogMonitor.SPAN_MARKERS.entrySet()) {
+			assertFalse(marker.getKey(), marker.getValue().matcher(line).find());
+		}
+	}
+
+	@Test
+	public void processLine_shouldRecordTheModuleStarts() {
+		monitor.processLine(" INFO - ModuleFactory.startModuleInternal(923) |2023-05-10T10:16:00,000| "
+				+ "Starting module: webservices.rest", 1000);
+		monitor.processLine(" INFO - ModuleClassLoader.<init>(120) |2023-05-10T10:16:01,000| Loading module", 1500);
+		monitor.processLine("2024-03-01 10:01:02,000 INFO  [main] org.openmrs.module.ModuleFactory - "
+				+ "Starting module: reporting-rest", 2000);
+		monitor.processLine(" INFO - ReportingRestActivator.started(40) |2023-05-10T10:16:03,000| Reporting REST started", 3000);
+		monitor.processLine(" INFO - Listener.contextInitialized(250) |2023-05-10T10:16:09,000| Starting the OpenMRS Web", 9000);
+
+		Map<String, StartupTimeline.Phase> phases = getPhases();
+
+		assertEquals(1000, phases.get("Module webservices.rest").getStart());
+		assertEquals(2000, phases.get("Module webservices.rest").getEnd());
+		assertEquals(2000, phases.get("Module reporting-rest").getStart());
+		assertEquals(3000, phases.get("Module reporting-rest").getEnd());
+		assertEquals(1000, monitor.getFirstLine());
+	}
+
+	@Test
+	public void processLine_shouldSpanFromTheFirstToTheLastMarker() {
+		monitor.processLine(" INFO - LoggingUtils.info(63) |2023-05-10T10:15:10,200| Successfully acquired change log lock", 100);
+		monitor.processLine(" INFO - Context.startup(1012) |2023-05-10T10:15:20,000| Updating the database", 200);
+		monitor.processLine(" INFO - LoggingUtils.info(63) |2023-05-10T10:15:30,001| Successfully released change log lock", 300);
+
+		StartupTimeline.Phase liquibase = getPhases().get("Liquibase");
+		assertEquals(100, liquibase.getStart());
+		assertEquals(300, liquibase.getEnd());
+	}
+
+	@Test
+	public void poll_shouldReadCompleteLinesOnly() throws Exception {
+		FileUtils.writeStringToFile(logFile, " INFO - LoggingUtils.info(63) |2023-05-10T10:15:10,200| "
+				+ "Successfully acquired change log lock\n INFO - ModuleFactory.startModuleInternal(923) "
+				+ "|2023-05-10T10:16:00,000| Starting module: legacy", StandardCharsets.UTF_8);
+		monitor.poll();
+
+		assertTrue(getPhases().containsKey("Liquibase"));
+		assertFalse(getPhases().containsKey("Module legacyui"));
+
+		FileUtils.writeStringToFile(logFile, "ui\r\n", StandardCharsets.UTF_8, true);
+		monitor.poll();
+
+		assertTrue(getPhases().containsKey("Module legacyui"));
+	}
+
+	private void assertMarker(String phase, String line) {
+		assertTrue(line, StartupLogMonitor.SPAN_MARKERS.get(phase).matcher(line).find());
+		for (Map.Entry<String, Pattern> marker : StartupLogMonitor.SPAN_MARKERS.entrySet()) {
+			if (!marker.getKey().equals(phase)) {
+				assertFalse(marker.getKey() + ": " + line, marker.getValue().matcher(line).find());
+			}
+		}
+	}
+
+	private Map<String, StartupTimeline.Phase> getPhases() {
+		StartupTimeline timeline = new StartupTimeline(0);
+		monitor.addTo(timeline);
+		Map<String, StartupTimeline.Phase> phases = new LinkedHashMap<>();
+		for (StartupTimeline.Phase phase : timeline.getPhases()) {
+			phases.put(phase.getName(), phase);
+		}
+		return phases;
+	}
+}
@@ -0,0 +1,58 @@
+package org.openmrs.maven.plugins.cargo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+public class StartupTimelineTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void getPhases_shouldSortPhasesByStartAndSkipNegativeOnes() {
+		StartupTimeline timeline = new StartupTimeline(1000);
+		timeline.add("Liquibase", 5000, 9000);
+		timeline.add("SDK preparation", 1000, 2500);
+		timeline.add("Module legacyui", 9000, 8000);
+
+		assertEquals(2, timeline.getPhases().size());
+		assertEquals("SDK preparation", timeline.getPhases().get(0).getName());
+		assertEquals("Liquibase", timeline.getPhases().get(1).getName());
+	}
+
+	@Test
+	public void toTable_shouldShowTheOffsetAndDurationInSeconds() {
+		StartupTimeline timeline = new StartupTimeline(1000);
+		timeline.add("SDK preparation", 1000, 2500);
+		timeline.add("Liquibase", 5000, 9000);
+
+		String[] lines = timeline.toTable(61000).split(System.lineSeparator());
+
+		assertEquals("Phase            Start [s]   Took [s]", lines[0]);
+		assertEquals("SDK preparation        0.0        1.5", lines[2]);
+		assertEquals("Liquibase              4.0        4.0", lines[3]);
+		assertEquals("Total                  0.0       60.0", lines[5]);
+	}
+
+	@Test
+	public void writeJson_shouldWriteThePhasesWithTheirOffsets() throws Exception {
+		StartupTimeline timeline = new StartupTimeline(1000);
+		timeline.add("Liquibase", 5000, 9000);
+		File file = new File(tempDir.getRoot(), StartupTimeline.TIMELINE_FILE);
+
+		timeline.writeJson(file, 61000);
+
+		JsonNode json = new ObjectMapper().readTree(file);
+		assertEquals(60000, json.get("totalMillis").asLong());
+		assertEquals("Liquibase", json.get("phases").get(0).get("name").asText());
+		assertEquals(4000, json.get("phases").get(0).get("offsetMillis").asLong());
+		assertEquals(4000, json.get("phases").get(0).get("durationMillis").asLong());
+	}
+}
@@ -4,6 +4,7 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.HealthCheck;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.PortBinding;
@@ -17,15 +18,32 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Mojo(name = "create-mysql", requiresProject = false)
 public class CreateMySql extends AbstractDockerMojo {
 
+    static final String NO_PROFILE = "none";
+
+    static final String DEV_PROFILE = "dev";
+
+    static final String CI_PROFILE = "ci";
+
+    static final String PROFILE_LABEL = "org.openmrs.sdk.db-profile";
+
+    private static final long MB = 1024 * 1024;
+
+    private static final long MIN_BUFFER_POOL = 256 * MB;
+
+    private static final long MAX_BUFFER_POOL = 4096 * MB;
+
     /**
      * port exposed by mysql container to connect with db
      */
@@ -44,21 +62,48 @@ public class CreateMySql extends AbstractDockerMojo {
     @Parameter(property = "rootPassword")
     protected String rootPassword;
 
+    /**
+     * mysql server settings: 'dev' trades durability on a crash of the host for faster writes,
+     * 'ci' additionally turns off the doublewrite buffer and performance schema, 'none' keeps the image defaults
+     */
+    @Parameter(property = "dbProfile", defaultValue = DEV_PROFILE)
+    protected String dbProfile;
+
+    /**
+     * keep the data directory in memory, for throwaway servers e.g. on CI, the data is lost when the container stops,
+     * so it is refused for the default container, which holds the databases of all servers
+     */
+    @Parameter(property = "dbTmpfs", defaultValue = "false")
+    protected boolean dbTmpfs;
+
     @Override
     public void executeTask() throws MojoExecutionException {
         if (StringUtils.isBlank(port)) port = DEFAULT_MYSQL_EXPOSED_PORT;
         //root password may be blank but not null, if user wants to have empty password
         if (rootPassword == null) rootPassword = DEFAULT_MYSQL_PASSWORD;
+        if (container == null) container = DEFAULT_MYSQL_CONTAINER;
+        checkTmpfs(container, dbTmpfs);
 
         if (noMySqlImage(docker)) {
             pullMySqlImage(docker);
         }
 
-        if (findContainer(DEFAULT_MYSQL_CONTAINER) == null) {
+        if (findContainer(container) == null) {
             createMysqlContainer(docker);
         }
     }
 
+    /**
+     * The default container is shared by all servers, which would all lose their databases with the container
+     */
+    static void checkTmpfs(String container, boolean dbTmpfs) throws MojoExecutionException {
+        if (dbTmpfs && DEFAULT_MYSQL_CONTAINER.equals(container)) {
+            throw new MojoExecutionException("The data of the '" + DEFAULT_MYSQL_CONTAINER + "' container, which holds "
+                    + "the databases of all servers, cannot be kept in memory. Create a separate container with "
+                    + "-Dcontainer=<name> -DdbTmpfs=true instead.");
+        }
+    }
+
     private boolean noMySqlImage(DockerClient docker) {
         ListImagesCmd listImagesCmd = docker.listImagesCmd();
         listImagesCmd.getFilters().put("reference", Collections.singletonList(MYSQL_8_4_1));
@@ -66,30 +111,80 @@ public class CreateMySql extends AbstractDockerMojo {
         return mysql.isEmpty();
     }
 
-    private void createMysqlContainer(DockerClient docker) {
-        if (container == null) container = DEFAULT_MYSQL_CONTAINER;
-
+    private void createMysqlContainer(DockerClient docker) throws MojoExecutionException {
         PortBinding portBinding = new PortBinding(new Ports.Binding("127.0.0.1", port), ExposedPort.tcp(3306));
 
         Map<String, String> labels = new HashMap<>();
         labels.put(container, "true");
 
-        Volume volume = new Volume("/var/lib/mysql");
-        Bind boundVolume = new Bind(container + "-data", volume);
-
         HostConfig hostConfig = new HostConfig()
-                .withPortBindings(portBinding)
-                .withBinds(boundVolume);
+                .withPortBindings(portBinding);
+        if (dbTmpfs) {
+            hostConfig.withTmpFs(Collections.singletonMap("/var/lib/mysql", "rw"));
+        } else {
+            Volume volume = new Volume("/var/lib/mysql");
+            hostConfig.withBinds(new Bind(container + "-data", volume));
+        }
+
+        List<String> flags = getMySqlFlags(dbProfile, docker.infoCmd().exec().getMemTotal());
+        labels.put(PROFILE_LABEL, StringUtils.defaultIfBlank(dbProfile, NO_PROFILE));
+        showMessage("Creating the '" + container + "' container with the '" + labels.get(PROFILE_LABEL) + "' profile"
+                + (flags.isEmpty() ? "" : " " + flags) + (dbTmpfs ? " and the data in memory" : ""));
 
         docker.createContainerCmd(MYSQL_8_4_1)
                 .withHostConfig(hostConfig)
                 .withName(container)
                 .withEnv("MYSQL_ROOT_PASSWORD="+rootPassword)
+                .withHealthcheck(getHealthCheck())
+                .withCmd(flags)
                 .withAttachStdout(true)
                 .withLabels(labels)
                 .exec();
     }
 
+    /**
+     * The mysql image passes arguments starting with '-' to mysqld.
+     *
+     * @param hostMemory memory of the Docker host in bytes or null if unknown
+     * @return the server flags of the profile
+     */
+    static List<String> getMySqlFlags(String profile, Long hostMemory) throws MojoExecutionException {
+        if (StringUtils.isBlank(profile) || NO_PROFILE.equals(profile)) {
+            return Collections.emptyList();
+        }
+        if (!DEV_PROFILE.equals(profile) && !CI_PROFILE.equals(profile)) {
+            throw new MojoExecutionException("Invalid DB profile '" + profile + "', use one of: "
+                    + DEV_PROFILE + ", " + CI_PROFILE + ", " + NO_PROFILE);
+        }
+
+        List<String> flags = new ArrayList<>();
+        // a quarter of the host memory, the SDK shares the host with the server and an IDE
+        long bufferPool = hostMemory != null && hostMemory > 0 ? hostMemory / 4 : MIN_BUFFER_POOL;
+        bufferPool = Math.max(MIN_BUFFER_POOL, Math.min(MAX_BUFFER_POOL, bufferPool));
+        flags.add("--innodb-buffer-pool-size=" + (bufferPool / MB) + "M");
+        // the log is written at each commit, but only flushed to disk once a second
+        flags.add("--innodb-flush-log-at-trx-commit=2");
+        flags.add("--skip-log-bin");
+        flags.add("--sync-binlog=0");
+        if (CI_PROFILE.equals(profile)) {
+            flags.add("--innodb-doublewrite=OFF");
+            flags.add("--performance-schema=OFF");
+        }
+        return flags;
+    }
+
+    /**
+     * Lets run-db wait for the health status instead of trying to connect while MySQL initializes
+     */
+    private HealthCheck getHealthCheck() {
+        return new HealthCheck()
+                .withTest(Arrays.asList("CMD", "mysqladmin", "ping", "-h", "127.0.0.1", "--silent"))
+                .withInterval(TimeUnit.SECONDS.toNanos(2))
+                .withTimeout(TimeUnit.SECONDS.toNanos(5))
+                .withStartPeriod(TimeUnit.SECONDS.toNanos(60))
+                .withRetries(30);
+    }
+
     private void pullMySqlImage(DockerClient docker) throws MojoExecutionException {
         final CountDownLatch latch = new CountDownLatch(1);
         docker.pullImageCmd("mysql")
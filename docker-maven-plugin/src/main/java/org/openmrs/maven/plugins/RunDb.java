@@ -1,17 +1,29 @@
 package org.openmrs.maven.plugins;
 
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.model.Container;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
+import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 
 @Mojo(name = "run-db", requiresProject = false)
 public class RunDb extends AbstractDockerMojo {
 
     public static final String JDBC_MYSQL = "jdbc:mysql://";
+
+    private static final long INITIAL_PROBE_DELAY_MILLIS = 100;
+
+    private static final long MAX_PROBE_DELAY_MILLIS = 5000;
+
+    private static final String HEALTHY = "healthy";
+
+    private static final String UNHEALTHY = "unhealthy";
+
     /**
      * port exposed by mysql container to connect with db
      */
@@ -36,6 +48,12 @@ public class RunDb extends AbstractDockerMojo {
     @Parameter(property = "password")
     protected String password;
 
+    /**
+     * seconds to wait for the db to accept connections
+     */
+    @Parameter(property = "dbTimeout", defaultValue = "120")
+    protected int dbTimeout = 120;
+
     @Override
     public void executeTask() throws MojoExecutionException {
         Container dbContainer = null;
@@ -59,22 +77,66 @@ public class RunDb extends AbstractDockerMojo {
             if (StringUtils.isBlank(username)) username = "root";
             if (StringUtils.isBlank(password)) password = DEFAULT_MYSQL_PASSWORD;
 
-            //wait until MySQL is ready for connections, usually takes miliseconds,
-            //but if there is automatically created connection after start-up, it may be refused
-            long start = System.currentTimeMillis();
             showMessage("Trying to connect to the DB...");
-            while (System.currentTimeMillis() - start < 30000) {
-                try {
-                    DriverManager.getConnection(dbUri, username, password);
-                    //breaks only if connection is established
-                    showMessage("Connected to the DB.");
+            waitUntilReady(dbContainer.getId());
+        }
+    }
+
+    /**
+     * Waits until the container is not reported as starting by its health check, if it has one, and the DB accepts
+     * connections. The probes back off exponentially, so a slow start does not keep a CPU and connection slots busy.
+     */
+    private void waitUntilReady(String containerId) throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        long deadline = start + dbTimeout * 1000L;
+        long delay = INITIAL_PROBE_DELAY_MILLIS;
+        int probes = 0;
+        String health = null;
+        String lastError = null;
+        // a probe must not hang longer than the backoff allows
+        DriverManager.setLoginTimeout((int) (MAX_PROBE_DELAY_MILLIS / 1000) * 2);
+
+        while (true) {
+            InspectContainerResponse.ContainerState state = docker.inspectContainerCmd(containerId).exec().getState();
+            if (state == null || !Boolean.TRUE.equals(state.getRunning())) {
+                throw new MojoExecutionException("The '" + container + "' container stopped while starting"
+                        + (state != null && state.getExitCodeLong() != null ? " with exit code " + state.getExitCodeLong() : "")
+                        + ". Run `docker logs " + container + "` to see why.");
+            }
+            health = state.getHealth() != null ? state.getHealth().getStatus() : null;
+            if (UNHEALTHY.equals(health)) {
+                throw new MojoExecutionException("The '" + container + "' container is unhealthy. Run `docker logs "
+                        + container + "` to see why.");
+            }
+
+            // containers created without a health check only report whether they run
+            if (health == null || HEALTHY.equals(health)) {
+                probes++;
+                try (Connection connection = DriverManager.getConnection(dbUri, username, password)) {
+                    showMessage(String.format("Connected to the DB in %d ms.", System.currentTimeMillis() - start));
                     return;
-                } catch (Exception e) {
-                    //do nothing, iterate again
+                } catch (SQLException e) {
+                    lastError = e.getMessage();
                 }
             }
-            throw new MojoExecutionException("Failed to connect to the DB in the '" + this.container + "' container at '" + dbUri + "'");
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(delay, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for the DB in the '" + container + "' container", e);
+            }
+            delay = Math.min(delay * 2, MAX_PROBE_DELAY_MILLIS);
         }
+
+        throw new MojoExecutionException(String.format("Failed to connect to the DB in the '%s' container at '%s' "
+                        + "within %d seconds (health: %s, connection attempts: %d, last error: %s). "
+                        + "Increase the timeout with -DdbTimeout or run `docker logs %s` to see why.",
+                container, dbUri, dbTimeout, health != null ? health : "no health check", probes, lastError, container));
     }
 
     public String stripOffDbName(String dbUri) {
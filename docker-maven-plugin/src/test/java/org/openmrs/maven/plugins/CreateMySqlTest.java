@@ -0,0 +1,63 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CreateMySqlTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    public void getMySqlFlags_shouldUseAQuarterOfTheHostMemoryForTheDevProfile() throws Exception {
+        List<String> flags = CreateMySql.getMySqlFlags(CreateMySql.DEV_PROFILE, 8 * GB);
+
+        assertEquals(Arrays.asList("--innodb-buffer-pool-size=2048M", "--innodb-flush-log-at-trx-commit=2",
+                "--skip-log-bin", "--sync-binlog=0"), flags);
+    }
+
+    @Test
+    public void getMySqlFlags_shouldLimitTheBufferPool() throws Exception {
+        assertTrue(CreateMySql.getMySqlFlags(CreateMySql.DEV_PROFILE, 64 * GB).contains("--innodb-buffer-pool-size=4096M"));
+        assertTrue(CreateMySql.getMySqlFlags(CreateMySql.DEV_PROFILE, GB / 2).contains("--innodb-buffer-pool-size=256M"));
+        assertTrue(CreateMySql.getMySqlFlags(CreateMySql.DEV_PROFILE, null).contains("--innodb-buffer-pool-size=256M"));
+    }
+
+    @Test
+    public void getMySqlFlags_shouldTurnOffDoublewriteAndPerformanceSchemaForTheCiProfile() throws Exception {
+        List<String> flags = CreateMySql.getMySqlFlags(CreateMySql.CI_PROFILE, 8 * GB);
+
+        assertTrue(flags.contains("--innodb-doublewrite=OFF"));
+        assertTrue(flags.contains("--performance-schema=OFF"));
+        assertFalse(CreateMySql.getMySqlFlags(CreateMySql.DEV_PROFILE, 8 * GB).contains("--innodb-doublewrite=OFF"));
+    }
+
+    @Test
+    public void getMySqlFlags_shouldKeepTheImageDefaultsWithoutProfile() throws Exception {
+        assertEquals(Collections.emptyList(), CreateMySql.getMySqlFlags(CreateMySql.NO_PROFILE, 8 * GB));
+        assertEquals(Collections.emptyList(), CreateMySql.getMySqlFlags("", 8 * GB));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void getMySqlFlags_shouldRejectAnUnknownProfile() throws Exception {
+        CreateMySql.getMySqlFlags("fast", 8 * GB);
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void checkTmpfs_shouldRefuseTheSharedContainer() throws Exception {
+        CreateMySql.checkTmpfs(AbstractDockerMojo.DEFAULT_MYSQL_CONTAINER, true);
+    }
+
+    @Test
+    public void checkTmpfs_shouldAllowASeparateContainer() throws Exception {
+        CreateMySql.checkTmpfs("openmrs-sdk-ci-mysql", true);
+        CreateMySql.checkTmpfs(AbstractDockerMojo.DEFAULT_MYSQL_CONTAINER, false);
+    }
+}
@@ -1,6 +1,10 @@
 package org.openmrs.maven.plugins;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -11,15 +15,28 @@ import org.apache.maven.shared.invoker.InvocationRequest;
 import org.apache.maven.shared.invoker.InvocationResult;
 import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Project;
+import org.openmrs.maven.plugins.utility.Checksums;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Build server's watched projects, OWA projects or node projects.
@@ -27,6 +44,18 @@ import java.util.Set;
 @Mojo(name = "build", requiresProject = false)
 public class Build extends AbstractServerTask {
 
+	private static final String DEFAULT_THREADS = "1C";
+
+	/**
+	 * Stores the dependency fingerprint of the last successful build of the watched projects
+	 */
+	private static final String RESOLVED_MARKER = "watched-projects.resolved";
+
+	/**
+	 * How long the dependencies resolved by a build are trusted, like with the daily update policy of Maven
+	 */
+	static final long RESOLVED_MARKER_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
 	/**
 	 * Flag to indicate whether to build OWA projects.
 	 */
@@ -45,6 +74,18 @@ public class Build extends AbstractServerTask {
 	@Parameter(property = "nodeVersion")
 	protected String nodeVersion;
 
+	/**
+	 * Flag to indicate whether to clean watched projects before building them.
+	 */
+	@Parameter(property = "clean", defaultValue = "false")
+	private boolean clean;
+
+	/**
+	 * Number of threads to build watched projects with, as for mvn -T (defaults to '1C', one per CPU core).
+	 */
+	@Parameter(property = "threads")
+	private String threads;
+
 	public Build() {
 	}
 
@@ -127,23 +168,134 @@ public class Build extends AbstractServerTask {
 			return;
 		}
 
-		buildCoreIfWatched(server);
+		// once a build resolved all dependencies, the next builds of the day can skip checking the remote repositories
+		String dependencyFingerprint = computeDependencyFingerprint(server.getWatchedProjects());
+		File resolvedMarker = new File(server.getServerDirectory(), RESOLVED_MARKER);
+		boolean offline = !mavenSession.getRequest().isUpdateSnapshots()
+				&& isResolved(resolvedMarker, dependencyFingerprint, System.currentTimeMillis());
+
+		buildCoreIfWatched(server, offline);
 		for (Project project : server.getWatchedProjectsToBuild()) {
-			buildProject(project);
+			buildWatchedProject(project, offline);
+		}
+		if (!offline) {
+			writeMarker(resolvedMarker, dependencyFingerprint);
 		}
 
 		deployWatchedProjects(server);
 	}
 
-	private void buildCoreIfWatched(Server server) throws MojoExecutionException, MojoFailureException {
+	private void buildCoreIfWatched(Server server, boolean offline) throws MojoExecutionException, MojoFailureException {
 		for (Project project : server.getWatchedProjects()) {
 			if (project.isOpenmrsCore()) {
-				buildProject(project);
+				buildWatchedProject(project, offline);
 				return;
 			}
 		}
 	}
 
+	/**
+	 * Run "mvn install -DskipTests -T 1C" command in the given directory, which for the reactor of the watched
+	 * projects builds all of them in a single parallel build
+	 */
+	private void buildWatchedProject(Project project, boolean offline) throws MojoExecutionException, MojoFailureException {
+		Properties properties = new Properties();
+		properties.put("skipTests", "true");
+
+		InvocationRequest request = new DefaultInvocationRequest();
+		request.setGoals(Collections.singletonList(clean ? "clean install" : "install"))
+				.setProperties(properties)
+				.setThreads(StringUtils.defaultIfBlank(threads, DEFAULT_THREADS))
+				.setShowErrors(mavenSession.getRequest().isShowErrors())
+				.setOffline(offline || mavenSession.getRequest().isOffline())
+				.setLocalRepositoryDirectory(mavenSession.getRequest().getLocalRepositoryPath())
+				.setUpdateSnapshots(mavenSession.getRequest().isUpdateSnapshots())
+				.setShowVersion(true)
+				.setBaseDirectory(new File(project.getPath()));
+		if (offline) {
+			wizard.showMessage("Dependencies of watched projects were resolved before, building offline. Use -U to update them.");
+		}
+
+		executeBuild(request, project);
+	}
+
+	/**
+	 * @return true if a build of the watched projects with the same poms resolved their dependencies less than
+	 * {@link #RESOLVED_MARKER_MAX_AGE_MILLIS} ago
+	 */
+	static boolean isResolved(File marker, String dependencyFingerprint, long now) {
+		return marker.exists() && now - marker.lastModified() < RESOLVED_MARKER_MAX_AGE_MILLIS
+				&& dependencyFingerprint.equals(readMarker(marker));
+	}
+
+	/**
+	 * @return a checksum of the poms of all watched projects, which changes whenever their dependencies may change
+	 */
+	static String computeDependencyFingerprint(Collection<Project> projects) throws MojoExecutionException {
+		try {
+			MessageDigest digest = Checksums.sha1();
+			for (Project project : projects) {
+				digest.update(project.getPath().getBytes(StandardCharsets.UTF_8));
+				List<Path> poms = new ArrayList<>();
+				collectReactorPoms(Paths.get(project.getPath()).toAbsolutePath().normalize(), poms);
+				for (Path pom : poms) {
+					digest.update(pom.toString().getBytes(StandardCharsets.UTF_8));
+					digest.update(Files.readAllBytes(pom));
+				}
+			}
+			return Checksums.toHex(digest.digest());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to read poms of watched projects: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Adds the pom in the given directory and, following the modules of the pom and its profiles, the poms of the
+	 * whole reactor
+	 */
+	private static void collectReactorPoms(Path module, List<Path> poms) throws IOException {
+		// a module is either a directory or the path of its pom
+		Path pom = Files.isDirectory(module) ? module.resolve("pom.xml") : module;
+		if (!Files.isRegularFile(pom) || poms.contains(pom)) {
+			return;
+		}
+		poms.add(pom);
+
+		Model model;
+		try (Reader reader = Files.newBufferedReader(pom, StandardCharsets.UTF_8)) {
+			model = new MavenXpp3Reader().read(reader);
+		}
+		catch (XmlPullParserException e) {
+			throw new IOException("Invalid pom " + pom + ": " + e.getMessage(), e);
+		}
+		Set<String> modules = new LinkedHashSet<>(model.getModules());
+		for (Profile profile : model.getProfiles()) {
+			modules.addAll(profile.getModules());
+		}
+		for (String childModule : modules) {
+			collectReactorPoms(pom.getParent().resolve(childModule).normalize(), poms);
+		}
+	}
+
+	private static String readMarker(File marker) {
+		try {
+			return FileUtils.readFileToString(marker, StandardCharsets.UTF_8).trim();
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void writeMarker(File marker, String fingerprint) {
+		try {
+			FileUtils.writeStringToFile(marker, fingerprint, StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			// the next build checks the remote repositories again
+		}
+	}
+
 	protected void buildNpmProject() throws MojoExecutionException {
 		wizard.showMessage("Building NPM project...");
 
@@ -173,12 +325,30 @@ public class Build extends AbstractServerTask {
 	private void deployWatchedProjects(Server server) throws MojoExecutionException {
 		Set<Project> watchedProject = server.getWatchedProjects();
 		for (Project module : watchedProject) {
-			Project project = Project.loadProject(new File(module.getPath()));
-			if (project.isOpenmrsModule()) {
-				new Deploy(this).deployModule(project.getGroupId(), project.getArtifactId(), project.getVersion(), server);
-			} else if (project.isOpenmrsCore()) {
-				new ServerUpgrader(this).upgradePlatform(server, project.getVersion());
-			}
+			deployWatchedProject(server, module);
+		}
+	}
+
+	/**
+	 * Deploy a single watched module or core to server
+	 */
+	public void deployWatchedProject(Server server, Project module) throws MojoExecutionException {
+		deployWatchedProject(server, module, true);
+	}
+
+	/**
+	 * Deploy a single watched module or core to server
+	 *
+	 * @param confirmUpdate whether to ask before replacing another version of a module, which is replaced without
+	 *                      asking otherwise
+	 */
+	public void deployWatchedProject(Server server, Project module, boolean confirmUpdate) throws MojoExecutionException {
+		Project project = Project.loadProject(new File(module.getPath()));
+		if (project.isOpenmrsModule()) {
+			new Deploy(this).deployModule(project.getGroupId(), project.getArtifactId(), project.getVersion(), server,
+					confirmUpdate);
+		} else if (project.isOpenmrsCore()) {
+			new ServerUpgrader(this).upgradePlatform(server, project.getVersion());
 		}
 	}
 
@@ -199,6 +369,34 @@ public class Build extends AbstractServerTask {
 				.setShowVersion(true)
 				.setBaseDirectory(new File(project.getPath()));
 
+		executeBuild(request, project);
+	}
+
+	/**
+	 * Run "mvn install -DskipTests -o -pl omod -am" command in the given directory. Without clean only
+	 * the changed sources are compiled again, and only the omod and the modules it depends on are built.
+	 * Dependencies must have been resolved by a previous build.
+	 */
+	public void buildProjectIncrementally(Project project) throws MojoExecutionException, MojoFailureException {
+		Properties properties = new Properties();
+		properties.put("skipTests", "true");
+
+		InvocationRequest request = new DefaultInvocationRequest();
+		request.setGoals(Collections.singletonList("install"))
+				.setProperties(properties)
+				.setShowErrors(mavenSession.getRequest().isShowErrors())
+				.setOffline(true)
+				.setLocalRepositoryDirectory(mavenSession.getRequest().getLocalRepositoryPath())
+				.setBaseDirectory(new File(project.getPath()));
+		if (new File(new File(project.getPath(), "omod"), "pom.xml").exists()) {
+			request.setProjects(Collections.singletonList("omod"))
+					.setAlsoMake(true);
+		}
+
+		executeBuild(request, project);
+	}
+
+	private void executeBuild(InvocationRequest request, Project project) throws MojoExecutionException, MojoFailureException {
 		Invoker invoker = new DefaultInvoker();
 		InvocationResult result;
 		try {
@@ -40,6 +40,7 @@ import java.nio.file.Files;
 import static java.nio.file.StandardOpenOption.APPEND;
 import static java.nio.file.StandardOpenOption.CREATE;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.openmrs.maven.plugins.utility.SDKConstants.REFAPP_2X_PROMPT;
@@ -417,11 +418,8 @@ public class BuildDistro extends AbstractTask {
 			throws MojoExecutionException {
 		List<Artifact> owas = distroProperties.getOwaArtifacts();
 		if (!owas.isEmpty()) {
-			wizard.showMessage("Downloading OWAs...\n");
-			for (Artifact owa : owas) {
-				wizard.showMessage("Downloading OWA: " + owa);
-				owaHelper.downloadOwa(owasDir, owa, moduleInstaller);
-			}
+			owaHelper.downloadOwas(owasDir, owas, moduleInstaller);
+			owaHelper.precompressOwas(owasDir);
 		}
 	}
 
@@ -443,7 +441,14 @@ public class BuildDistro extends AbstractTask {
 		boolean isLowerThan2point5 = !isPlatform2point5AndAbove(platformVersion);
 		if (isLowerThan2point5 && namespace == null && repository == null) {
 			String dockerFile = "Dockerfile-jre" + (majorVersion == 1 ? "7" : "8") + (bundled ? "-bundled" : "");
-			copyBuildDistroResource(dockerFile, new File(targetDirectory, "Dockerfile"));
+			File targetDockerFile = new File(targetDirectory, "Dockerfile");
+			copyBuildDistroResource(dockerFile, targetDockerFile);
+			try {
+				FileUtils.writeLines(targetDockerFile, "UTF-8", Arrays.asList("", getDockerHealthcheck(distroProperties)), true);
+			}
+			catch (IOException e) {
+				throw new MojoExecutionException("Failed to write Dockerfile: " + e.getMessage(), e);
+			}
 		}
 		else {
 			namespace = StringUtils.defaultIfBlank(namespace, "openmrs");
@@ -479,6 +484,8 @@ public class BuildDistro extends AbstractTask {
 				lines.add("COPY openmrs_spa /openmrs/distribution/openmrs_spa");
 			}
 			lines.add("");
+			lines.add(getDockerHealthcheck(distroProperties));
+			lines.add("");
 			for (String extraProperty : distroProperties.getPropertiesNames()) {
 				String propertyValue = distroProperties.getPropertyValue(extraProperty);
 				if (StringUtils.isBlank(propertyValue)) {
@@ -497,6 +504,16 @@ public class BuildDistro extends AbstractTask {
 		}
 	}
 
+	/**
+	 * The container is healthy once the REST session endpoint responds, which happens only after the modules
+	 * were started. Distributions without the REST module fall back to the OpenMRS webapp itself.
+	 */
+	String getDockerHealthcheck(DistroProperties distroProperties) {
+		String path = distroProperties.getModuleArtifact("webservices.rest") != null ? "/openmrs/ws/rest/v1/session" : "/openmrs/";
+		return "HEALTHCHECK --interval=15s --timeout=10s --start-period=10m --retries=3 CMD curl -fsS -o /dev/null http://localhost:8080"
+				+ path + " || exit 1";
+	}
+
 	/**
 	 * Resolves the best available Docker image tag for the given platform version.
 	 * Candidates are evaluated in preference order — each candidate is checked
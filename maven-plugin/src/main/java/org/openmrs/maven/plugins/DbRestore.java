@@ -0,0 +1,56 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.DbSnapshots;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+
+import java.util.List;
+
+/**
+ * Restore the server database from a snapshot taken with the db-snapshot goal.
+ */
+@Mojo(name = "db-restore", requiresProject = false)
+public class DbRestore extends AbstractServerTask {
+
+	/**
+	 * Name of the snapshot to restore.
+	 */
+	@Parameter(property = "snapshot")
+	private String snapshot;
+
+	@Override
+	public void executeTask() throws MojoExecutionException {
+		Server server = getServer();
+		DbSnapshots snapshots = new DbSnapshots(server, wizard);
+		List<String> names = snapshots.getSnapshotNames();
+		if (names.isEmpty()) {
+			throw new MojoExecutionException("Server " + server.getServerId()
+					+ " has no snapshots, take one with 'mvn openmrs-sdk:db-snapshot' first");
+		}
+		if (StringUtils.isBlank(snapshot) && names.size() == 1) {
+			snapshot = names.get(0);
+		}
+		snapshot = wizard.promptForMissingValueWithOptions("Which snapshot (-D%s) would you like to restore?",
+				snapshot, "snapshot", names);
+
+		if (StringUtils.isNotBlank(server.getContainerId())) {
+			new DockerHelper(getMavenEnvironment()).runDbContainer(
+					server.getContainerId(),
+					server.getDbUri(),
+					server.getDbUser(),
+					server.getDbPassword());
+		}
+
+		wizard.showMessage("Restoring snapshot '" + snapshot + "' of the " + server.getServerId() + " server database...");
+		snapshots.restore(snapshot);
+	}
+
+	@Override
+	protected Server loadServer() throws MojoExecutionException {
+		return loadValidatedServer(serverId);
+	}
+}
@@ -0,0 +1,49 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.DbSnapshots;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+
+/**
+ * Take a snapshot of the server database, which can be restored with the db-restore goal.
+ */
+@Mojo(name = "db-snapshot", requiresProject = false)
+public class DbSnapshot extends AbstractServerTask {
+
+	/**
+	 * Name of the snapshot. An existing snapshot with the same name is replaced.
+	 */
+	@Parameter(property = "snapshot", defaultValue = DbSnapshots.DEFAULT_SNAPSHOT)
+	private String snapshot;
+
+	/**
+	 * Either 'database' to copy the database on the database server or 'dump' to dump the tables into
+	 * compressed files in the server directory.
+	 */
+	@Parameter(property = "snapshotFormat", defaultValue = "database")
+	private String snapshotFormat;
+
+	@Override
+	public void executeTask() throws MojoExecutionException {
+		Server server = getServer();
+		if (StringUtils.isNotBlank(server.getContainerId())) {
+			new DockerHelper(getMavenEnvironment()).runDbContainer(
+					server.getContainerId(),
+					server.getDbUri(),
+					server.getDbUser(),
+					server.getDbPassword());
+		}
+
+		wizard.showMessage("Taking snapshot '" + snapshot + "' of the " + server.getServerId() + " server database...");
+		new DbSnapshots(server, wizard).snapshot(snapshot, DbSnapshots.Format.fromName(snapshotFormat));
+	}
+
+	@Override
+	protected Server loadServer() throws MojoExecutionException {
+		return loadValidatedServer(serverId);
+	}
+}
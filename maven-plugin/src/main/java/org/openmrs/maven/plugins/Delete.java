@@ -4,8 +4,11 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.utility.DBConnector;
+import org.openmrs.maven.plugins.utility.DbSnapshots;
+import org.openmrs.maven.plugins.utility.DbTemplates;
 import org.openmrs.maven.plugins.utility.DockerHelper;
 
 import java.io.IOException;
@@ -19,11 +22,15 @@ public class Delete extends AbstractServerTask {
 
 	private static final String TEMPLATE_SUCCESS = "Server '%s' removed successfully";
 
+	/**
+	 * Also drop the database templates, which setups with dbTemplate cached in the Docker container of the server
+	 */
+	@Parameter(property = "dbTemplates")
+	private Boolean dbTemplates;
+
 	public void executeTask() throws MojoExecutionException {
 		Server server = getServer();
 		try {
-			FileUtils.deleteDirectory(server.getServerDirectory());
-
 			if (StringUtils.isNotBlank(server.getContainerId())) {
 				new DockerHelper(getMavenEnvironment()).runDbContainer(
 						server.getContainerId(),
@@ -32,6 +39,18 @@ public class Delete extends AbstractServerTask {
 						server.getDbPassword());
 			}
 
+			if (server.isMySqlDb() || server.isPostgreSqlDb()) {
+				// the snapshot databases are only known from the metadata in the server directory
+				new DbSnapshots(server, wizard).deleteAll();
+			}
+
+			if (Boolean.TRUE.equals(dbTemplates) && StringUtils.isNotBlank(server.getContainerId())
+					&& (server.isMySqlDb() || server.isPostgreSqlDb())) {
+				new DbTemplates(server, wizard).deleteAll();
+			}
+
+			FileUtils.deleteDirectory(server.getServerDirectory());
+
 			if (server.isMySqlDb() || server.isPostgreSqlDb()) {
 				String dbName = server.getDbName();
 				String dbUser = server.getDbUser();
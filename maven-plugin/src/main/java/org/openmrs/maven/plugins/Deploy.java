@@ -369,6 +369,18 @@ public class Deploy extends AbstractServerTask {
 	 */
 	public void deployModule(String groupId, String artifactId, String version, Server server)
 			throws MojoExecutionException {
+		deployModule(groupId, artifactId, version, server, true);
+	}
+
+	/**
+	 * Deploy Module to server
+	 *
+	 * @param confirmUpdate whether to ask before replacing another version of the module, which is replaced without
+	 *                      asking otherwise, e.g. when deploying from a background thread
+	 * @throws MojoExecutionException
+	 */
+	public void deployModule(String groupId, String artifactId, String version, Server server, boolean confirmUpdate)
+			throws MojoExecutionException {
 		List<Element> artifactItems = new ArrayList<>();
 		Artifact artifact = getModuleArtifactForSelectedParameters(groupId, artifactId, version);
 
@@ -376,7 +388,7 @@ public class Deploy extends AbstractServerTask {
 		modules.mkdirs();
 		artifactItems.add(artifact.toElement(modules.getPath()));
 
-		boolean moduleRemoved = deleteModuleFromServer(artifact, modules, server);
+		boolean moduleRemoved = deleteModuleFromServer(artifact, modules, server, confirmUpdate);
 
 		if (moduleRemoved) {
 			executeMojoPlugin(artifactItems);
@@ -415,10 +427,11 @@ public class Deploy extends AbstractServerTask {
 	 * @param artifact
 	 * @param serverModules
 	 * @param server
+	 * @param confirmUpdate whether to ask before removing another version of the module
 	 * @return true if module has been removed or module does not exist
 	 * @throws MojoExecutionException
 	 */
-	private boolean deleteModuleFromServer(Artifact artifact, File serverModules, Server server)
+	private boolean deleteModuleFromServer(Artifact artifact, File serverModules, Server server, boolean confirmUpdate)
 			throws MojoExecutionException {
 		File[] listOfModules = serverModules.listFiles();
 		String moduleId = StringUtils.removeEnd(artifact.getArtifactId(), "-omod");
@@ -429,7 +442,7 @@ public class Deploy extends AbstractServerTask {
 				Version oldVersion = new Version(oldV.substring(0, oldV.lastIndexOf('.')));
 				Version newVersion = new Version(artifact.getVersion());
 
-				if (!oldVersion.equals(newVersion)) {
+				if (!oldVersion.equals(newVersion) && confirmUpdate) {
 					if (oldVersion.higher(newVersion)) {
 						wizard.showMessage(TEMPLATE_DOWNGRADE);
 					}
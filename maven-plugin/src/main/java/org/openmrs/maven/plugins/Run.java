@@ -1,6 +1,7 @@
 package org.openmrs.maven.plugins;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.SystemUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -15,12 +16,24 @@ import org.openmrs.maven.plugins.model.Artifact;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Project;
 import org.openmrs.maven.plugins.model.Version;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.openmrs.maven.plugins.utility.AppCdsArchive;
+import org.openmrs.maven.plugins.utility.DockerHelper;
+import org.openmrs.maven.plugins.utility.JDKVersionHelper;
+import org.openmrs.maven.plugins.utility.JvmProfile;
+import org.openmrs.maven.plugins.utility.ProjectWatcher;
 import org.openmrs.maven.plugins.utility.SDKConstants;
+import org.openmrs.maven.plugins.utility.SearchIndexCache;
+import org.openmrs.maven.plugins.utility.ServerClasspathCache;
 import org.openmrs.maven.plugins.utility.ServerHelper;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -46,6 +59,16 @@ public class Run extends AbstractServerTask {
 
 	private static final Version PLATFORM_3_0 = new Version("3.0.0-SNAPSHOT");
 
+	private static final String NO_JVM_PROFILE = "none";
+
+	private static final String CONTAINER_LAUNCHER_CLASS = "org.openmrs.maven.plugins.cargo.CargoContainerLauncher";
+
+	/**
+	 * User properties passed on to the server process
+	 */
+	private static final List<String> FORWARDED_PROPERTIES = Arrays.asList("explodedWar", "compression",
+			"keepAliveTimeout", "maxThreads", "virtualThreads", "hotRedeploy");
+
 	public Run() {
 	}
 
@@ -103,6 +126,47 @@ public class Run extends AbstractServerTask {
 	@Parameter(property = "jvmArgs")
 	private String jvmArgs;
 
+	/**
+	 * Flag to indicate whether to start the server JVM directly, once the container classpath was resolved
+	 * by a previous run, instead of through a new Maven build (defaults to 'false')
+	 */
+	@Parameter(property = "directLaunch")
+	private Boolean directLaunch;
+
+	/**
+	 * Flag to indicate whether to record and use an Application Class-Data Sharing archive to speed up
+	 * the server start (requires JDK 13+)
+	 */
+	@Parameter(property = AppCdsArchive.APP_CDS_PROPERTY)
+	private Boolean appCds;
+
+	/**
+	 * JVM profile sized from the memory and processors of the machine: "dev", "low-memory", "demo", "perf"
+	 * or "none". It is remembered for the server.
+	 */
+	@Parameter(property = "jvmProfile")
+	private String jvmProfile;
+
+	/**
+	 * Flag to indicate whether to rebuild and redeploy watched modules when their sources change while
+	 * the server runs (defaults to 'false')
+	 */
+	@Parameter(property = "autoBuild")
+	private Boolean autoBuild;
+
+	/**
+	 * Flag to indicate whether to log slow and frequently repeated SQL statements of a MySQL or PostgreSQL server
+	 * to sql.log in the server directory. It is remembered for the server.
+	 */
+	@Parameter(property = "sqlLog")
+	private Boolean sqlLog;
+
+	/**
+	 * Milliseconds from which SQL statements are logged as slow (defaults to '100'). It is remembered for the server.
+	 */
+	@Parameter(property = "sqlLogThreshold")
+	private Integer sqlLogThreshold;
+
 
 	private ServerHelper serverHelper;
 
@@ -122,6 +186,20 @@ public class Run extends AbstractServerTask {
 
 		server.setParam("tomcat.port", String.valueOf(port));
 
+		if (StringUtils.isNotBlank(jvmProfile)) {
+			if (!NO_JVM_PROFILE.equalsIgnoreCase(jvmProfile)) {
+				jvmProfile = JvmProfile.fromName(jvmProfile).getName();
+			}
+			server.setJvmProfile(jvmProfile);
+		}
+
+		if (sqlLog != null) {
+			server.setSqlLog(sqlLog);
+		}
+		if (sqlLogThreshold != null) {
+			server.setSqlLogThreshold(String.valueOf(sqlLogThreshold));
+		}
+
 		server.save();
 		File serverPath = server.getServerDirectory();
 		serverPath.mkdirs();
@@ -144,10 +222,101 @@ public class Run extends AbstractServerTask {
 			new Build(this, serverId).executeTask();
 		}
 
+		if (server.hasWatchedProjects() && Boolean.TRUE.equals(autoBuild)) {
+			startAutoBuild(server);
+		}
+
+		startSearchIndexCapture(server);
 
 		runInFork(server);
 	}
 
+	/**
+	 * Caches the search index in the background once the first start of a server set up with
+	 * -DsearchIndexCache=true has built it
+	 */
+	private void startSearchIndexCapture(Server server) {
+		String key = server.getParam(SearchIndexCache.KEY_PROPERTY);
+		if (StringUtils.isBlank(key) || !(server.isMySqlDb() || server.isPostgreSqlDb())) {
+			return;
+		}
+		SearchIndexCache cache = new SearchIndexCache(server, wizard);
+		if (cache.contains(key)) {
+			// cached by another server set up from the same dump and distribution
+			clearSearchIndexKey(server);
+			return;
+		}
+
+		String dbUri = server.getDbUri().replace("@DBNAME@", server.getDbName());
+		Thread thread = new Thread(() -> {
+			if (cache.captureWhenIndexed(key, dbUri)) {
+				clearSearchIndexKey(server);
+			}
+		}, "openmrs-sdk-search-index-capture");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Removes the key of the search index from the server properties, so that later runs do not capture it again
+	 */
+	private void clearSearchIndexKey(Server server) {
+		server.removeParam(SearchIndexCache.KEY_PROPERTY);
+		try {
+			server.save();
+		}
+		catch (MojoExecutionException e) {
+			getLog().warn("Unable to remove " + SearchIndexCache.KEY_PROPERTY + " from the server properties: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Watches the sources of the watched modules in the background and builds and deploys a module
+	 * incrementally after it changed. The running server then restarts the deployed module.
+	 * <p>
+	 * The console belongs to the server, so a changed version of a module replaces the deployed one without asking.
+	 */
+	private void startAutoBuild(Server server) throws MojoExecutionException {
+		List<File> moduleDirs = new ArrayList<>();
+		for (Project watchedProject : server.getWatchedProjects()) {
+			File projectDir = new File(watchedProject.getPath());
+			if (Project.hasProject(projectDir) && Project.loadProject(projectDir).isOpenmrsModule()) {
+				moduleDirs.add(projectDir);
+			}
+		}
+		if (moduleDirs.isEmpty()) {
+			return;
+		}
+
+		Build build = new Build(this, server.getServerId());
+		ProjectWatcher projectWatcher = new ProjectWatcher(moduleDirs, projectDir -> {
+			Project project = Project.loadProject(projectDir);
+			wizard.showMessage("Sources of " + project.getArtifactId() + " changed, building it...");
+			long start = System.currentTimeMillis();
+			try {
+				build.buildProjectIncrementally(project);
+			}
+			catch (MojoFailureException e) {
+				throw new MojoExecutionException(e.getMessage(), e);
+			}
+			build.deployWatchedProject(server, project, false);
+			wizard.showMessage(String.format("Built and deployed %s in %d ms", project.getArtifactId(),
+					System.currentTimeMillis() - start));
+		});
+
+		Thread thread = new Thread(() -> {
+			try {
+				projectWatcher.watch();
+			}
+			catch (MojoExecutionException e) {
+				getLog().error("Stopped watching the sources of watched projects: " + e.getMessage());
+			}
+		}, "openmrs-sdk-auto-build");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
 	private void validatePort() throws MojoExecutionException {
 		int tmpPort = port;
 
@@ -203,9 +372,18 @@ public class Run extends AbstractServerTask {
 			mavenOpts = mavenSession.getRequest().getSystemProperties().getProperty("env.MAVEN_OPTS", "");
 		}
 
+		// the options must be supported by the JDK of the server, which may be another one than the one of Maven
+		int jdkMajorVersion = getJdkMajorVersion(server);
+		String serverJvmProfile = server.getJvmProfile();
+		if (StringUtils.isNotBlank(serverJvmProfile) && !NO_JVM_PROFILE.equalsIgnoreCase(serverJvmProfile)) {
+			JvmProfile profile = JvmProfile.fromName(serverJvmProfile);
+			mavenOpts = profile.apply(mavenOpts, jdkMajorVersion >= JvmProfile.MIN_CONTAINER_SUPPORT_JDK_VERSION);
+			wizard.showMessage("Using JVM profile " + profile.getName() + ": " + mavenOpts);
+		}
+
 		mavenOpts = adjustXmxToAtLeast(mavenOpts, 768);
 
-		if (isJava11OrHigher()) {
+		if (jdkMajorVersion >= 11) {
 			mavenOpts +=
 					" --add-opens java.base/java.lang=ALL-UNNAMED" +
 					" --add-opens java.base/java.lang.reflect=ALL-UNNAMED" +
@@ -220,6 +398,22 @@ public class Run extends AbstractServerTask {
 
 		mavenOpts = setDebugPort(mavenOpts, server);
 
+		List<File> directClasspath = null;
+		if (StringUtils.isBlank(runGoal) && isDirectLaunch()) {
+			directClasspath = new ServerClasspathCache().read(
+					resolvePlatformArtifactId(new Version(server.getPlatformVersion())),
+					SDKConstants.getSDKInfo().getVersion());
+		}
+
+		if (Boolean.TRUE.equals(appCds)) {
+			if (server.hasWatchedProjects() && isWatchApi()) {
+				wizard.showMessage("Class data sharing is not used together with hot redeployment of API classes.");
+			} else {
+				mavenOpts += new AppCdsArchive(server, wizard).getJvmOptions(
+						directClasspath != null ? directClasspath : getMavenBootClasspath());
+			}
+		}
+
 		if (StringUtils.isNotBlank(jvmArgs)) {
 			mavenOpts += " " + jvmArgs + " ";
 		}
@@ -238,6 +432,13 @@ public class Run extends AbstractServerTask {
 			properties.put("springloaded", "inclusions=org.openmrs..*");
 		}
 
+		for (String forwardedProperty : FORWARDED_PROPERTIES) {
+			String value = mavenSession.getRequest().getUserProperties().getProperty(forwardedProperty);
+			if (value != null) {
+				properties.put(forwardedProperty, value);
+			}
+		}
+
 		Version platformVersion = new Version(server.getPlatformVersion());
 
 		// Resolve which container to use: CLI param > server property > default (tomcat)
@@ -251,13 +452,19 @@ public class Run extends AbstractServerTask {
 		if (StringUtils.isBlank(runGoal)) {
 			String platformArtifactId = resolvePlatformArtifactId(platformVersion);
 			String containerId = resolveContainerId(platformVersion, effectiveContainer);
+			String sdkVersion = SDKConstants.getSDKInfo().getVersion();
 
 			properties.put("containerId", containerId);
 
+			if (directClasspath != null) {
+				runDirectly(server, directClasspath, mavenOpts, properties);
+				return;
+			}
+
 			runGoal = String.format("%s:%s:%s:run-container",
 					SDKConstants.OPENMRS_SERVER_PLUGIN_GROUP_ID,
 					platformArtifactId,
-					SDKConstants.getSDKInfo().getVersion());
+					sdkVersion);
 		}
 
 		InvocationRequest request = new DefaultInvocationRequest();
@@ -291,19 +498,86 @@ public class Run extends AbstractServerTask {
 		}
 	}
 
-	private boolean isJava11OrHigher() {
-		String version = System.getProperty("java.version");
-		if (version == null || version.startsWith("1.")) {
-			return false;
+	/**
+	 * Starts the container JVM directly with the classpath cached by a previous run through Maven,
+	 * which saves the Maven bootstrap and plugin resolution of a forked build
+	 */
+	private void runDirectly(Server server, List<File> classpath, String jvmOptions, Properties properties)
+			throws MojoExecutionException {
+		if (StringUtils.isNotBlank(server.getContainerId())) {
+			new DockerHelper(getMavenEnvironment()).runDbContainer(
+					server.getContainerId(),
+					server.getDbUri(),
+					server.getDbUser(),
+					server.getDbPassword());
+		}
+
+		List<String> classpathEntries = new ArrayList<>();
+		for (File entry : classpath) {
+			classpathEntries.add(entry.getAbsolutePath());
+		}
+
+		String javaHome = server.getJavaHome() != null ? server.getJavaHome() : System.getProperty("java.home");
+		List<String> command = new ArrayList<>();
+		command.add(new File(new File(javaHome, "bin"), SystemUtils.IS_OS_WINDOWS ? "java.exe" : "java").getAbsolutePath());
+		try {
+			command.addAll(Arrays.asList(CommandLineUtils.translateCommandline(jvmOptions)));
 		}
+		catch (Exception e) {
+			throw new MojoExecutionException("Invalid JVM arguments: " + jvmOptions, e);
+		}
+		for (String name : properties.stringPropertyNames()) {
+			command.add("-D" + name + "=" + properties.getProperty(name));
+		}
+		command.add("-cp");
+		command.add(StringUtils.join(classpathEntries, File.pathSeparator));
+		command.add(CONTAINER_LAUNCHER_CLASS);
+
+		getLog().debug("Starting server with: " + StringUtils.join(command, " "));
 		try {
-			int major = Integer.parseInt(version.split("\\.")[0]);
-			return major >= 11;
-		} catch (NumberFormatException e) {
-			return false;
+			Process process = new ProcessBuilder(command).inheritIO().start();
+			Runtime.getRuntime().addShutdownHook(new Thread(process::destroy));
+			int exitCode = process.waitFor();
+			if (exitCode != 0) {
+				throw new MojoExecutionException("Failed running server, exit code: " + exitCode);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to start server process", e);
 		}
 	}
 
+	/**
+	 * @return the major version of the JDK the server is started with, which may be another JDK than the one of
+	 * Maven, or the version of the JDK running Maven if the version of the server's JDK cannot be read
+	 */
+	int getJdkMajorVersion(Server server) {
+		String javaHome = server.getJavaHome() != null ? server.getJavaHome() : System.getProperty("java.home");
+		int version = JDKVersionHelper.getJdkMajorVersion(javaHome);
+		if (version == 0) {
+			version = JDKVersionHelper.parseMajorVersion(System.getProperty("java.specification.version"));
+			wizard.showWarning("Unable to determine the version of the JDK in " + javaHome
+					+ ", assuming it is the same as the one running Maven: " + version);
+		}
+		return version;
+	}
+
+	/**
+	 * @return the classpath of the JVM started by a new Maven build
+	 */
+	private static List<File> getMavenBootClasspath() {
+		String mavenHome = System.getProperty("maven.home");
+		File[] bootJars = mavenHome != null ? new File(mavenHome, "boot").listFiles((dir, name) -> name.endsWith(".jar")) : null;
+		if (bootJars == null) {
+			return Collections.emptyList();
+		}
+		Arrays.sort(bootJars);
+		return Arrays.asList(bootJars);
+	}
+
 	private String setDebugPort(String mavenOpts, Server server) throws MojoExecutionException {
 		String address = null;
 		if (StringUtils.isNotBlank(debug)) {
@@ -414,6 +688,10 @@ public class Run extends AbstractServerTask {
 		return loadValidatedServer(serverId);
 	}
 
+	private boolean isDirectLaunch() {
+		return Boolean.TRUE.equals(directLaunch);
+	}
+
 	private boolean isWatchApi() {
 		return Boolean.TRUE.equals(watchApi);
 	}
@@ -129,11 +129,11 @@ public class ServerUpgrader {
 				}
 				server.removePropertiesForArtifact(BaseSdkProperties.TYPE_OWA, artifact);
 			}
+			parentTask.owaHelper.downloadOwas(owaDir, owaChanges.getArtifactsToAdd(), parentTask.moduleInstaller);
 			for (Artifact artifact : owaChanges.getArtifactsToAdd()) {
-				parentTask.wizard.showMessage("Installing OWA: " + artifact.getArtifactId());
-				parentTask.owaHelper.downloadOwa(owaDir, artifact, parentTask.moduleInstaller);
 				server.addPropertiesForArtifact(BaseSdkProperties.TYPE_OWA, artifact);
 			}
+			parentTask.owaHelper.precompressOwas(owaDir);
 		}
 
 		// Upgrade config and content
@@ -14,26 +14,42 @@ import org.openmrs.maven.plugins.model.DistroProperties;
 import org.openmrs.maven.plugins.model.Server;
 import org.openmrs.maven.plugins.model.Version;
 import org.openmrs.maven.plugins.utility.DBConnector;
+import org.openmrs.maven.plugins.utility.DbConnectionProvider;
+import org.openmrs.maven.plugins.utility.DbTemplates;
+import org.openmrs.maven.plugins.utility.DeferredMessages;
 import org.openmrs.maven.plugins.utility.DistributionBuilder;
+import org.openmrs.maven.plugins.utility.ImportProgress;
 import org.openmrs.maven.plugins.utility.SDKConstants;
+import org.openmrs.maven.plugins.utility.SearchIndexCache;
 import org.openmrs.maven.plugins.utility.ServerHelper;
+import org.openmrs.maven.plugins.utility.SqlDumpImporter;
+import org.openmrs.maven.plugins.utility.Wizard;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.openmrs.maven.plugins.model.Artifact.GROUP_DISTRO;
 import static org.openmrs.maven.plugins.utility.SDKConstants.PLATFORM_ARTIFACT_ID;
@@ -64,6 +80,8 @@ public class Setup extends AbstractServerTask {
 
 	private static final int DEFAULT_PORT = 8080;
 
+	private static final long DATABASE_SETUP_STOP_TIMEOUT_SECONDS = 30;
+
 	/**
 	 * DB Driver type
 	 */
@@ -94,6 +112,20 @@ public class Setup extends AbstractServerTask {
 	@Parameter(property = "dbSql")
 	private String dbSql;
 
+	/**
+	 * Clone the database of a Docker container from a template cached by an earlier setup with the same dump
+	 * (defaults to 'false')
+	 */
+	@Parameter(property = "dbTemplate")
+	private Boolean dbTemplate;
+
+	/**
+	 * Restore the search index cached after the first start of a server set up with the same dump
+	 * instead of rebuilding it (defaults to 'false')
+	 */
+	@Parameter(property = "searchIndexCache")
+	private Boolean searchIndexCache;
+
 	/**
 	 * Docker host address
 	 */
@@ -156,6 +188,21 @@ public class Setup extends AbstractServerTask {
 
 	private ServerHelper serverHelper;
 
+	/**
+	 * Connections shared by the database operations of the setup
+	 */
+	private final DbConnectionProvider dbConnections = new DbConnectionProvider();
+
+	/**
+	 * Runs the database setup in the background, while the artifacts are installed
+	 */
+	private ExecutorService databaseSetupExecutor;
+
+	/**
+	 * The messages of the database setup, which are shown once setup waits for it
+	 */
+	private DeferredMessages databaseMessages;
+
 	public Setup() {
 		super();
 	}
@@ -284,19 +331,6 @@ public class Setup extends AbstractServerTask {
 
 			setServerVersionsFromDistroProperties(server, distroProperties);
 			distroHelper.validateDistribution(distroProperties);
-			moduleInstaller.installModulesForDistro(server, distroProperties);
-
-			File configurationDir = new File(server.getServerDirectory(), SDKConstants.OPENMRS_SERVER_CONFIGURATION);
-			contentHelper.installBackendConfig(distroProperties, configurationDir);
-
-			if (spaInstaller != null) {
-				spaInstaller.installFromDistroProperties(server.getServerDirectory(), distroProperties, ignorePeerDependencies, overrideReuseNodeCache);
-			}
-
-			installOWAs(server, distroProperties);
-			configurationInstaller.installToServer(server, distroProperties);
-		} else {
-			moduleInstaller.installDefaultModules(server);
 		}
 
 		serverHelper = new ServerHelper(wizard);
@@ -304,7 +338,32 @@ public class Setup extends AbstractServerTask {
 		setServerPort(server);
 		setDebugPort(server);
 
-		setupDatabase(server, distroProperties);
+		// The database is created and imported in the background while the artifacts are downloaded,
+		// so all questions about it are asked first.
+		Future<?> databaseSetup = setupDatabase(server, distroProperties);
+		try {
+			if (distroProperties != null) {
+				moduleInstaller.installModulesForDistro(server, distroProperties);
+
+				File configurationDir = new File(server.getServerDirectory(), SDKConstants.OPENMRS_SERVER_CONFIGURATION);
+				contentHelper.installBackendConfig(distroProperties, configurationDir);
+
+				if (spaInstaller != null) {
+					spaInstaller.installFromDistroProperties(server.getServerDirectory(), distroProperties, ignorePeerDependencies, overrideReuseNodeCache);
+				}
+
+				installOWAs(server, distroProperties);
+				configurationInstaller.installToServer(server, distroProperties);
+			} else {
+				moduleInstaller.installDefaultModules(server);
+			}
+		}
+		catch (MojoExecutionException | RuntimeException e) {
+			stopDatabaseSetup(databaseSetup);
+			throw e;
+		}
+
+		awaitDatabaseSetup(databaseSetup);
 
 		// If there's no distro at this point, we create a minimal one here,
 		// *after* having initialized server.isH2Supported in `setupDatabase` above.
@@ -339,6 +398,7 @@ public class Setup extends AbstractServerTask {
 			File owasDir = new File(server.getServerDirectory(), "owa");
 			owasDir.mkdir();
 			downloadOWAs(server.getServerDirectory(), distroProperties, owasDir);
+			owaHelper.precompressOwas(owasDir);
 		}
 	}
 
@@ -346,23 +406,19 @@ public class Setup extends AbstractServerTask {
 			throws MojoExecutionException {
 		List<Artifact> owas = distroProperties.getOwaArtifacts();
 		if (!owas.isEmpty()) {
-			wizard.showMessage("Downloading OWAs...\n");
-			for (Artifact owa : owas) {
-				wizard.showMessage("Downloading OWA: " + owa);
-				owaHelper.downloadOwa(owasDir, owa, moduleInstaller);
-			}
+			owaHelper.downloadOwas(owasDir, owas, moduleInstaller);
 		}
 	}
 
-	private void wipeDatabase(Server server) throws MojoExecutionException {
+	private void wipeDatabase(Server server, Wizard output) throws MojoExecutionException {
 		String uri = getUriWithoutDb(server);
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+		try (DBConnector connector = new DBConnector(dbConnections, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 			connector.dropDatabase();
 			if (server.isMySqlDb() || server.isPostgreSqlDb()) {
 				connector.checkAndCreate(server);
-				wizard.showMessage("Connected to the database.");
+				output.showMessage("Connected to the database.");
 			}
-			wizard.showMessage("Database " + server.getDbName() + " has been wiped.");
+			output.showMessage("Database " + server.getDbName() + " has been wiped.");
 		}
 		catch (SQLException e) {
 			throw new MojoExecutionException("Failed to drop " + server.getDbName() + " database");
@@ -414,7 +470,12 @@ public class Setup extends AbstractServerTask {
 		}
 	}
 
-	private void setupDatabase(Server server, DistroProperties distroProperties) throws MojoExecutionException {
+	/**
+	 * Prompts for the database, connects to it and starts creating and importing it in the background.
+	 *
+	 * @return the database setup running in the background or null if there is nothing left to do
+	 */
+	private Future<?> setupDatabase(Server server, DistroProperties distroProperties) throws MojoExecutionException {
 		if (server.getDbDriver() == null) {
 			boolean isH2Supported = true;
 			if (distroProperties != null) {
@@ -424,12 +485,98 @@ public class Setup extends AbstractServerTask {
 			wizard.promptForDb(server, dockerHelper, isH2Supported, dbDriver, dockerHost);
 		}
 
-		if (server.getDbDriver() != null) {
-			setupDatabaseForServer(server);
+		if (server.getDbDriver() == null) {
+			return null;
+		}
+
+		databaseMessages = new DeferredMessages(wizard);
+		Callable<Void> databaseTask;
+		try {
+			databaseTask = setupDatabaseForServer(server, databaseMessages.getWizard());
+		}
+		catch (MojoExecutionException | RuntimeException e) {
+			dbConnections.close();
+			throw e;
+		}
+		if (databaseTask == null) {
+			dbConnections.close();
+			return null;
+		}
+
+		databaseSetupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "openmrs-sdk-database-setup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			return databaseSetupExecutor.submit(() -> {
+				try {
+					return databaseTask.call();
+				}
+				finally {
+					dbConnections.close();
+				}
+			});
+		}
+		finally {
+			databaseSetupExecutor.shutdown();
 		}
 	}
 
-	private void setupDatabaseForServer(Server server) throws MojoExecutionException {
+	private void awaitDatabaseSetup(Future<?> databaseSetup) throws MojoExecutionException {
+		if (databaseSetup == null) {
+			return;
+		}
+		databaseMessages.flush();
+		if (!databaseSetup.isDone()) {
+			wizard.showMessage("Waiting for the database setup to finish...");
+		}
+		try {
+			databaseSetup.get();
+		}
+		catch (InterruptedException e) {
+			stopDatabaseSetup(databaseSetup);
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while waiting for the database setup", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e.getCause();
+			}
+			throw new MojoExecutionException("Failed to setup the database: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the database setup running in the background and waits for it, so that it does not use the database
+	 * or the server directory anymore once the setup fails. The connections are aborted, as a running statement
+	 * does not stop when the thread is interrupted.
+	 */
+	private void stopDatabaseSetup(Future<?> databaseSetup) {
+		if (databaseSetup == null) {
+			return;
+		}
+		databaseSetup.cancel(true);
+		dbConnections.abort();
+		try {
+			if (!databaseSetupExecutor.awaitTermination(DATABASE_SETUP_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				wizard.showWarning("The database setup did not stop within " + DATABASE_SETUP_STOP_TIMEOUT_SECONDS
+						+ " seconds, the database may be incomplete.");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		databaseMessages.flush();
+	}
+
+	/**
+	 * Connects to the database and asks whether existing data should be kept.
+	 *
+	 * @param output shows the messages of the returned task, which runs in the background
+	 * @return the wiping, import and search index reset of the database, which do not need any input, or null
+	 */
+	private Callable<Void> setupDatabaseForServer(Server server, Wizard output) throws MojoExecutionException {
 		if (server.getDbName() == null) {
 			server.setDbName(determineDbName(server.getDbUri(), server.getServerId()));
 		}
@@ -442,7 +589,7 @@ public class Setup extends AbstractServerTask {
 			while (!connectionEstablished && attempts < maxAttempts) {
 				attempts++;
 				String uri = getUriWithoutDb(server);
-				try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+				try (DBConnector connector = new DBConnector(dbConnections, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 					connector.checkAndCreate(server);
 					wizard.showMessage("Connected to the database.");
 					connectionEstablished = true;
@@ -471,6 +618,7 @@ public class Setup extends AbstractServerTask {
 				}
 			}
 
+			boolean wipe = false;
 			if (hasDbTables(server)) {
 				if (dbReset == null) {
 					dbReset = !wizard.promptYesNo(
@@ -478,7 +626,7 @@ public class Setup extends AbstractServerTask {
 				}
 
 				if (dbReset) {
-					wipeDatabase(server);
+					wipe = true;
 				} else {
 					server.setParam("create_tables", "false");
 				}
@@ -488,28 +636,52 @@ public class Setup extends AbstractServerTask {
 				dbReset = true;
 			}
 
+			boolean wipeDatabase = wipe;
 			if (!"null".equals(dbSql) && dbReset) {
 				if (dbSql != null) {
-					importDb(server, dbSql);
-					resetSearchIndex(server);
+					String sqlScriptPath = dbSql;
+					// extracted from the distro before the other artifacts are downloaded
+					URL sqlUrl = resolveSqlScript(server, sqlScriptPath);
+					return () -> {
+						if (wipeDatabase) {
+							wipeDatabase(server, output);
+						}
+						String searchIndexKey = importDb(server, sqlUrl, sqlScriptPath, output);
+						if (searchIndexKey == null || !restoreSearchIndex(server, searchIndexKey, output)) {
+							resetSearchIndex(server, output);
+						}
+						return null;
+					};
 				} else if (!server.isMySqlDb() && !server.isPostgreSqlDb()) {
 					moduleInstaller.installModule(SDKConstants.H2_ARTIFACT, server.getServerDirectory().getPath());
 					wizard.showMessage("The specified database " + server.getDbName()
 							+ " does not exist and it will be created when OpenMRS starts.");
 				}
-			} else if (!dbReset) {
-				resetSearchIndex(server);
+			}
+
+			boolean keepData = !dbReset;
+			if (wipeDatabase || keepData) {
+				return () -> {
+					if (wipeDatabase) {
+						wipeDatabase(server, output);
+					}
+					if (keepData) {
+						resetSearchIndex(server, output);
+					}
+					return null;
+				};
 			}
 		} else {
 			moduleInstaller.installModule(SDKConstants.H2_ARTIFACT, server.getServerDirectory().getPath());
 			wizard.showMessage(
 					"The specified database " + server.getDbName() + " does not exist and it will be created for you.");
 		}
+		return null;
 	}
 
 	private boolean hasDbTables(Server server) throws MojoExecutionException {
 		String uri = getUriWithoutDb(server);
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
+		try (DBConnector connector = new DBConnector(dbConnections, uri, server.getDbUser(), server.getDbPassword(), server.getDbName())) {
 			DatabaseMetaData md = connector.getConnection().getMetaData();
 
 			try (ResultSet rs = md.getTables(server.getDbName(), null, null, new String[] { "TABLE" })) {
@@ -521,65 +693,160 @@ public class Setup extends AbstractServerTask {
 		}
 	}
 
-	private void resetSearchIndex(Server server) throws MojoExecutionException {
-		String uri = server.getDbUri();
-
-		try (DBConnector connector = new DBConnector(uri, server.getDbUser(), server.getDbPassword(), server.getDbName());
-			PreparedStatement ps = connector.getConnection().prepareStatement(SDKConstants.RESET_SEARCH_INDEX_SQL)) {
+	private void resetSearchIndex(Server server, Wizard output) throws MojoExecutionException {
+		try (PreparedStatement ps = getDbConnection(server).prepareStatement(SDKConstants.RESET_SEARCH_INDEX_SQL)) {
 			ps.execute();
-			wizard.showMessage("The search index has been reset.");
+			output.showMessage("The search index has been reset.");
 		}
 		catch (SQLException e) {
 			throw new MojoExecutionException("Failed to reset search index " + e.getMessage(), e);
 		}
 	}
 
-	private void importDb(Server server, String sqlScriptPath) throws MojoExecutionException {
-		wizard.showMessage("Importing an initial database from " + sqlScriptPath + "...");
-		String uri = server.getDbUri().replace("@DBNAME@", server.getDbName());
+	/**
+	 * Restores the search index cached for the dump. If there is none yet, the key is remembered for the run goal
+	 * to cache the index built by the first start.
+	 *
+	 * @return true if the index was restored
+	 */
+	private boolean restoreSearchIndex(Server server, String key, Wizard output) throws MojoExecutionException {
+		SearchIndexCache cache = new SearchIndexCache(server, output);
+		try {
+			if (cache.restore(key, getDbConnection(server))) {
+				return true;
+			}
+		}
+		catch (SQLException e) {
+			throw new MojoExecutionException("Failed to restore the search index " + e.getMessage(), e);
+		}
+		server.setParam(SearchIndexCache.KEY_PROPERTY, key);
+		return false;
+	}
+
+	/**
+	 * @return the key of the dump, if the search index is cached, otherwise null
+	 */
+	private String importDb(Server server, URL sqlUrl, String sqlScriptPath, Wizard output) throws MojoExecutionException {
+		boolean useTemplate = Boolean.TRUE.equals(dbTemplate) && StringUtils.isNotBlank(server.getContainerId())
+				&& (server.isMySqlDb() || server.isPostgreSqlDb());
+		boolean cacheSearchIndex = Boolean.TRUE.equals(searchIndexCache) && (server.isMySqlDb() || server.isPostgreSqlDb());
+		DbTemplates dbTemplates = null;
+		String templateKey = null;
+		if (useTemplate || cacheSearchIndex) {
+			dbTemplates = new DbTemplates(server, output);
+			try (InputStream sqlStream = openSqlScript(sqlUrl)) {
+				templateKey = dbTemplates.getTemplateKey(sqlStream);
+			}
+			catch (IOException e) {
+				throw new MojoExecutionException("Failed to read " + sqlScriptPath + ": " + e.getMessage(), e);
+			}
+		}
+		String searchIndexKey = cacheSearchIndex ? SearchIndexCache.getKey(server, templateKey) : null;
+		if (useTemplate && dbTemplates.restore(templateKey)) {
+			server.setParam("create_tables", "false");
+			return searchIndexKey;
+		}
 
+		output.showMessage("Importing an initial database from " + sqlScriptPath + "...");
+		boolean batched = server.isMySqlDb() || server.isPostgreSqlDb();
+
+		ImportProgress progress;
 		InputStream sqlStream;
+		try {
+			URLConnection sqlConnection = sqlUrl.openConnection();
+			progress = new ImportProgress(output, sqlConnection.getContentLengthLong());
+			sqlStream = progress.count(sqlConnection.getInputStream());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Error during opening sql dump script file " + sqlUrl, e);
+		}
+
+		try (InputStreamReader sqlReader = new InputStreamReader(sqlStream, StandardCharsets.UTF_8)) {
+			Connection connection = getDbConnection(server);
+			if (batched) {
+				SqlDumpImporter importer = new SqlDumpImporter(connection, server.isMySqlDb());
+				importer.setProgressListener(progress);
+				long statements = importer.importDump(sqlReader);
+				progress.finish(server.getServerDirectory(), sqlScriptPath, server.isMySqlDb() ? "MySQL" : "PostgreSQL",
+						statements);
+			} else {
+				ScriptRunner scriptRunner = new ScriptRunner(connection);
+				//we don't want to display ~5000 lines of queries to user if there is no error
+				scriptRunner.setLogWriter(new PrintWriter(NullOutputStream.INSTANCE));
+				scriptRunner.setStopOnError(true);
+				scriptRunner.runScript(sqlReader);
+			}
+
+			output.showMessage("Database imported successfully.");
+			server.setParam("create_tables", "false");
+		}
+		catch (Exception e) {
+			getLog().error(e.getMessage());
+			throw new MojoExecutionException("Failed to import database", e);
+		}
+
+		if (useTemplate) {
+			// PostgreSQL does not copy a database with open connections
+			dbConnections.close();
+			dbTemplates.save(templateKey);
+		}
+		return searchIndexKey;
+	}
+
+	/**
+	 * @return the shared connection to the server database
+	 */
+	private Connection getDbConnection(Server server) throws SQLException {
+		String uri = server.getDbUri().replace("@DBNAME@", server.getDbName());
+		if (server.isMySqlDb()) {
+			uri = SqlDumpImporter.withRewrittenBatches(uri);
+		}
+		return dbConnections.getConnection(uri, server.getDbUser(), server.getDbPassword());
+	}
+
+	/**
+	 * @return the location of the dump, extracting it from the distro if it is not on the classpath
+	 */
+	private URL resolveSqlScript(Server server, String sqlScriptPath) throws MojoExecutionException {
 		if (sqlScriptPath.startsWith(Server.CLASSPATH_SCRIPT_PREFIX)) {
 			String sqlScript = sqlScriptPath.replace(Server.CLASSPATH_SCRIPT_PREFIX, "");
-			sqlStream = (Setup.class.getClassLoader().getResourceAsStream(sqlScript));
-			if (sqlStream == null) {
+			URL sqlUrl = Setup.class.getClassLoader().getResource(sqlScript);
+			if (sqlUrl == null) {
 				Artifact distroArtifact = new Artifact(server.getDistroArtifactId(), server.getVersion(),
 						server.getDistroGroupId(), "jar");
 				File extractedSqlFile = distroHelper
 						.extractFileFromDistro(server.getServerDirectory(), distroArtifact, sqlScript);
 				extractedSqlFile.deleteOnExit();
 				try {
-					sqlStream = Files.newInputStream(extractedSqlFile.toPath());
+					sqlUrl = extractedSqlFile.toURI().toURL();
 				}
 				catch (Exception e) {
 					throw new MojoExecutionException("Error during opening sql dump script file", e);
 				}
 			}
-		} else {
-			File scriptFile = new File(sqlScriptPath);
-			try {
-				sqlStream = Files.newInputStream(scriptFile.toPath());
-			}
-			catch (Exception e) {
-				throw new MojoExecutionException("SQL import script could not be found at \"" +
-						scriptFile.getAbsolutePath() + "\" " + e.getMessage() , e);
-			}
+			return sqlUrl;
 		}
 
-		try (InputStreamReader sqlReader = new InputStreamReader(sqlStream);
-		     Connection connection = DriverManager.getConnection(uri, server.getDbUser(), server.getDbPassword())) {
-			ScriptRunner scriptRunner = new ScriptRunner(connection);
-			//we don't want to display ~5000 lines of queries to user if there is no error
-			scriptRunner.setLogWriter(new PrintWriter(NullOutputStream.INSTANCE));
-			scriptRunner.setStopOnError(true);
-			scriptRunner.runScript(sqlReader);
+		File scriptFile = new File(sqlScriptPath);
+		if (!scriptFile.isFile()) {
+			throw new MojoExecutionException("SQL import script could not be found at \"" +
+					scriptFile.getAbsolutePath() + "\"");
+		}
+		try {
+			return scriptFile.toURI().toURL();
+		}
+		catch (MalformedURLException e) {
+			throw new MojoExecutionException("SQL import script could not be found at \"" +
+					scriptFile.getAbsolutePath() + "\" " + e.getMessage() , e);
+		}
+	}
 
-			wizard.showMessage("Database imported successfully.");
-			server.setParam("create_tables", "false");
+	private InputStream openSqlScript(URL sqlUrl) throws MojoExecutionException {
+		try {
+			return sqlUrl.openStream();
 		}
-		catch (Exception e) {
-			getLog().error(e.getMessage());
-			throw new MojoExecutionException("Failed to import database", e);
+		catch (IOException e) {
+			throw new MojoExecutionException("Error during opening sql dump script file " + sqlUrl, e);
 		}
 	}
 
@@ -1,13 +1,24 @@
 package org.openmrs.maven.plugins;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openmrs.maven.plugins.model.Artifact;
+import org.openmrs.maven.plugins.model.PackageJson;
 import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.OwaHelper;
+import org.openmrs.maven.plugins.utility.OwaWatcher;
+import org.openmrs.maven.plugins.utility.SDKConstants;
+import org.openmrs.maven.plugins.utility.StaticAssetCompressor;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Watch OWA
@@ -15,11 +26,32 @@ import java.util.Map;
 @Mojo(name = "watch-owa", requiresProject = false)
 public class WatchOwa extends AbstractServerTask {
 
+    /**
+     * Flag to indicate whether to rebuild the OWA with the SDK watcher, which copies only the changed build output
+     * to the server, instead of running the project's own "npm run watch" script.
+     */
+    @Parameter(property = "sdkWatch", defaultValue = "false")
+    private boolean sdkWatch;
+
+    /**
+     * Name of the OWA directory on the server. Defaults to the installed OWA matching the name from package.json.
+     */
+    @Parameter(property = "owaName")
+    private String owaName;
+
+    /**
+     * Directory to which the OWA project is built.
+     */
+    @Parameter(property = "owaOutputDir", defaultValue = "dist")
+    private String owaOutputDir;
+
     @Override
     public void executeTask() throws MojoExecutionException {
         String configFilename = "webpack.config.js";
         File configFile = new File(configFilename);
-        if (configFile.exists()) {
+        if (configFile.exists() && sdkWatch) {
+            watchWithSdk(configFile.getAbsoluteFile().getParentFile());
+        } else if (configFile.exists()) {
             String port = getChosenServerPort();
             List<String> args = new ArrayList<>();
             args.add("run");
@@ -38,6 +70,65 @@ public class WatchOwa extends AbstractServerTask {
         }
     }
 
+    /**
+     * Rebuilds the OWA after each burst of source changes and copies only the changed build output
+     * into the server's owa directory, so the running server serves the new files right away
+     */
+    private void watchWithSdk(File projectDir) throws MojoExecutionException {
+        PackageJson packageJson = owaHelper.getPackageJson(OwaHelper.PACKAGE_JSON_FILENAME);
+        File owaDir = new File(getServer().getServerDirectory(), SDKConstants.OPENMRS_SERVER_OWA);
+        String name = StringUtils.isNotBlank(owaName) ? owaName : findInstalledOwa(owaDir, packageJson.getName());
+
+        Map<String, String> scripts = packageJson.getScripts() != null ? packageJson.getScripts() : Collections.emptyMap();
+        List<String> args = new ArrayList<>();
+        args.add("run");
+        args.add(scripts.containsKey("build:dev") ? "build:dev" : "build");
+        boolean useSystemNode = owaHelper.getProjectNodeVersion() == null;
+
+        File targetDir = new File(owaDir, name);
+        wizard.showMessage("Watching " + projectDir.getAbsolutePath() + ", changes will be copied to " + targetDir.getAbsolutePath());
+
+        StaticAssetCompressor compressor = StaticAssetCompressor.isEnabled() ? new StaticAssetCompressor() : null;
+        new OwaWatcher(projectDir, new File(projectDir, owaOutputDir), targetDir, () -> {
+            if (useSystemNode) {
+                owaHelper.runSystemNpmCommandWithArgs(args);
+            } else {
+                owaHelper.runLocalNpmCommandWithArgs(args);
+            }
+        }, compressor, OwaWatcher.DEFAULT_DEBOUNCE_MILLIS).watch();
+    }
+
+    /**
+     * Finds the OWA installed on the server, which is built by the project. OWAs are installed under the base name
+     * of their artifact, e.g. SystemAdministration for openmrs-owa-sysadmin, so the name from package.json is
+     * matched the same way, ignoring case.
+     *
+     * @return the name of the installed OWA directory, or the name from package.json if the OWA is not installed yet
+     */
+    String findInstalledOwa(File owaDir, String packageName) throws MojoExecutionException {
+        if (StringUtils.isBlank(packageName)) {
+            throw new MojoExecutionException("Unable to determine the OWA name, please specify it with -DowaName");
+        }
+        Set<String> candidates = new LinkedHashSet<>();
+        candidates.add(packageName);
+        candidates.add(owaHelper.getOwaBaseName(new Artifact(packageName, null)));
+
+        String[] installed = owaDir.list();
+        if (installed != null) {
+            for (String candidate : candidates) {
+                for (String entry : installed) {
+                    String entryName = StringUtils.removeEnd(entry, OwaHelper.OWA_PACKAGE_EXTENSION);
+                    if (entryName.equalsIgnoreCase(candidate)) {
+                        return entryName;
+                    }
+                }
+            }
+        }
+        wizard.showMessage("OWA " + packageName + " is not installed on the server, its build output will be copied to "
+                + new File(owaDir, packageName).getAbsolutePath() + ". Use -DowaName to copy it to another OWA.");
+        return packageName;
+    }
+
     private String getChosenServerPort() throws MojoExecutionException {
         final String defaultTomcatPort = "8080";
         Map<String,String> port = getServer().getServerProperty("tomcat.port");
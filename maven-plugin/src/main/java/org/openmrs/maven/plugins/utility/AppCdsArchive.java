@@ -0,0 +1,105 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Application Class-Data Sharing support for the run goal. The first start records the classes loaded by the
+ * server into a dynamic CDS archive, which later starts map into memory instead of loading and verifying the
+ * classes again.
+ * <p>
+ * The archive is keyed by the WAR, the installed modules, the JDK and the classpath the server is launched with,
+ * so it is not used after any of them changes. The outdated archive is removed by the next start, rather than by
+ * the goals changing the WAR or modules, which may run while the server is using or recording it.
+ */
+public class AppCdsArchive {
+
+	public static final String APP_CDS_PROPERTY = "appCds";
+
+	/**
+	 * -XX:ArchiveClassesAtExit was added in JDK 13
+	 */
+	static final int MIN_JDK_VERSION = 13;
+
+	static final String ARCHIVE_EXTENSION = ".jsa";
+
+	private final Server server;
+
+	private final Wizard wizard;
+
+	public AppCdsArchive(Server server, Wizard wizard) {
+		this.server = server;
+		this.wizard = wizard;
+	}
+
+	/**
+	 * @param classpath the classpath the server JVM is launched with
+	 * @return the JVM options to either use the existing archive or to record a new one,
+	 * or an empty string if the JDK does not support dynamic archives
+	 */
+	public String getJvmOptions(List<File> classpath) {
+		String javaHome = server.getJavaHome() != null ? server.getJavaHome() : System.getProperty("java.home");
+		String jdkVersion = JDKVersionHelper.getJdkVersion(javaHome);
+		if (jdkVersion == null || JDKVersionHelper.getJdkMajorVersion(javaHome) < MIN_JDK_VERSION) {
+			wizard.showMessage("Class data sharing requires JDK " + MIN_JDK_VERSION + " or newer, starting without it.");
+			return "";
+		}
+
+		File archiveDir = server.getServerAppCdsDirectory();
+		File archive = new File(archiveDir, "openmrs-" + computeKey(javaHome, jdkVersion, classpath) + ARCHIVE_EXTENSION);
+		if (archive.exists()) {
+			wizard.showMessage("Using class data sharing archive " + archive.getAbsolutePath());
+			return " -XX:SharedArchiveFile=\"" + archive.getAbsolutePath() + "\"";
+		}
+
+		// only the archive for the current WAR, modules and JDK is worth keeping
+		server.deleteAppCdsArchives();
+		archiveDir.mkdirs();
+		wizard.showMessage("Recording class data sharing archive to " + archive.getAbsolutePath()
+				+ " when the server stops, it will speed up the next starts.");
+		return " -XX:ArchiveClassesAtExit=\"" + archive.getAbsolutePath() + "\"";
+	}
+
+	String computeKey(String javaHome, String jdkVersion, List<File> classpath) {
+		List<String> inputs = new ArrayList<>();
+		inputs.add(javaHome);
+		inputs.add(jdkVersion);
+		// the JVM refuses an archive recorded with another classpath
+		for (File entry : classpath) {
+			inputs.add(entry.getAbsolutePath() + ":" + entry.length() + ":" + entry.lastModified());
+		}
+		for (File file : listFiles(server.getServerDirectory(), ".war")) {
+			inputs.add(describe(file));
+		}
+		for (File file : listFiles(new File(server.getServerDirectory(), SDKConstants.OPENMRS_SERVER_MODULES), ".omod")) {
+			inputs.add(describe(file));
+		}
+
+		MessageDigest digest = Checksums.sha1();
+		for (String input : inputs) {
+			digest.update(input.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+		return Checksums.toHex(digest.digest()).substring(0, 16);
+	}
+
+	private static String describe(File file) {
+		return file.getName() + ":" + file.length() + ":" + file.lastModified();
+	}
+
+	private static List<File> listFiles(File dir, String extension) {
+		File[] files = dir.listFiles((d, name) -> name.endsWith(extension));
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+}
@@ -1,7 +1,6 @@
 package org.openmrs.maven.plugins.utility;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -13,27 +12,26 @@ public class DBConnector implements AutoCloseable {
 
 	String dbName;
 
+	/**
+	 * Whether the connection was opened by this connector, a connection from a {@link DbConnectionProvider} stays open
+	 */
+	private final boolean ownsConnection;
+
 	public DBConnector(String url, String user, String pass, String dbName) throws SQLException {
-		DriverManager.setLoginTimeout(60);
 		/*
-		 * Connection attempts to a database in a newly created Docker container might fail on the first try due to the container not being fully ready
+		 * Connection attempts to a database in a newly created Docker container might fail on the first tries due to the container not being fully ready
 		 * This is to mitigate such errors.
 		 */
-		try {
-			this.connection = DriverManager.getConnection(url, user, pass);
-		} catch (SQLException e) {
-			try {
-				this.connection = DriverManager.getConnection(url, user, pass);
-			} catch (SQLException e2) {
-				if (e2.getMessage().contains("Access denied")) {
-					throw new SQLException("Invalid database credentials. Please check your username and password.", e2);
-				} else if (e2.getMessage().contains("No suitable driver found for") || e2.getMessage().contains("Communications link failure")) {
-					throw new SQLException("Incorrect Database Uri. Please provide a correct database uri.", e2);
-				}
-				throw e2;
-			}
-		}
+		this.connection = DbConnectionProvider.connect(url, user, pass, DbConnectionProvider.DEFAULT_ATTEMPTS);
+		this.dbName = dbName;
+		this.ownsConnection = true;
+	}
+
+	public DBConnector(DbConnectionProvider connections, String url, String user, String pass, String dbName)
+			throws SQLException {
+		this.connection = connections.getConnection(url, user, pass);
 		this.dbName = dbName;
+		this.ownsConnection = false;
 	}
 
 	/**
@@ -67,7 +65,7 @@ public class DBConnector implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public void close() throws SQLException {
-		if (connection != null) {
+		if (connection != null && ownsConnection) {
 			connection.close();
 		}
 	}
@@ -0,0 +1,745 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Takes snapshots of the database of a server and restores them, so that a known state comes back in seconds
+ * instead of importing the initial dump and running Liquibase and the Initializer again.
+ * <p>
+ * By default the database is copied on the database server itself: PostgreSQL creates the snapshot from the
+ * database as a template and MySQL recreates the schema in a snapshot database from SHOW CREATE statements and
+ * copies the rows with INSERT ... SELECT, so no data goes through the SDK. Where creating databases is not
+ * permitted, e.g. on a shared external MySQL, the tables are dumped in parallel into compressed SQL files in the
+ * server directory instead. Both keep the keys and foreign keys of the tables as well as the routines, views and
+ * triggers of the database.
+ * <p>
+ * The SDK's Docker container hosts the databases of all servers, so the data volume of the container is not
+ * copied, as it would also bring back the databases of other servers.
+ */
+public class DbSnapshots {
+
+	public static final String SNAPSHOTS_DIR = "snapshots";
+
+	public static final String DEFAULT_SNAPSHOT = "default";
+
+	static final String METADATA_FILE = "snapshot.properties";
+
+	static final String SCHEMA_FILE = "schema.sql.gz";
+
+	/**
+	 * The routines, views and triggers, which are created after the rows are imported
+	 */
+	static final String OBJECTS_FILE = "objects.sql.gz";
+
+	static final String OBJECTS_DELIMITER = ";;";
+
+	static final String TABLES_DIR = "tables";
+
+	static final int ROWS_PER_INSERT = 500;
+
+	private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9_\\-]+");
+
+	private static final int MAX_DATABASE_NAME_LENGTH = 63;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * The DEFINER clause of a routine, view or trigger, which would require the privilege to act as another user
+	 */
+	private static final Pattern DEFINER = Pattern.compile(
+			"\\s+DEFINER\\s*=\\s*(?:`[^`]*`|'[^']*'|[^\\s@]+)@(?:`[^`]*`|'[^']*'|\\S+)", Pattern.CASE_INSENSITIVE);
+
+	public enum Format {
+		/**
+		 * A copy of the database on the same database server
+		 */
+		DATABASE,
+		/**
+		 * Compressed SQL files with the schema and the rows of each table
+		 */
+		DUMP;
+
+		public static Format fromName(String name) throws MojoExecutionException {
+			for (Format format : values()) {
+				if (format.name().equalsIgnoreCase(name)) {
+					return format;
+				}
+			}
+			throw new MojoExecutionException("Invalid snapshot format '" + name + "', use 'database' or 'dump'");
+		}
+	}
+
+	private final Server server;
+
+	private final Wizard wizard;
+
+	private final int threads;
+
+	public DbSnapshots(Server server, Wizard wizard) {
+		this.server = server;
+		this.wizard = wizard;
+		this.threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	}
+
+	public void snapshot(String name, Format format) throws MojoExecutionException {
+		checkSupported();
+		if (format == Format.DUMP && !server.isMySqlDb()) {
+			throw new MojoExecutionException("Dump snapshots are only supported for MySQL, use the database format");
+		}
+		File snapshotDir = getSnapshotDir(name);
+		if (snapshotDir.exists()) {
+			wizard.showMessage("Replacing snapshot '" + name + "'...");
+			delete(name);
+		}
+
+		long start = System.currentTimeMillis();
+		Properties metadata = new Properties();
+		metadata.setProperty("name", name);
+		metadata.setProperty("database", server.getDbName());
+		metadata.setProperty("engine", server.isMySqlDb() ? "mysql" : "postgresql");
+		if (server.getVersion() != null) {
+			metadata.setProperty("version", server.getVersion());
+		}
+		metadata.setProperty("created", Instant.now().toString());
+
+		try {
+			if (format == Format.DATABASE) {
+				String snapshotDb = getSnapshotDatabase(name);
+				try {
+					copyDatabase(server.getDbName(), snapshotDb);
+					metadata.setProperty("snapshotDatabase", snapshotDb);
+				}
+				catch (SQLException e) {
+					if (!server.isMySqlDb()) {
+						throw e;
+					}
+					wizard.showMessage("Unable to create the " + snapshotDb + " database (" + e.getMessage()
+							+ "), dumping the tables instead...");
+					dropDatabaseQuietly(snapshotDb);
+					format = Format.DUMP;
+				}
+			}
+			if (format == Format.DUMP) {
+				dump(snapshotDir);
+			}
+		}
+		catch (SQLException | IOException e) {
+			FileUtils.deleteQuietly(snapshotDir);
+			throw new MojoExecutionException("Failed to take the '" + name + "' snapshot of " + server.getDbName()
+					+ ": " + e.getMessage(), e);
+		}
+
+		metadata.setProperty("format", format.name().toLowerCase(Locale.ROOT));
+		metadata.setProperty("durationMs", String.valueOf(System.currentTimeMillis() - start));
+		writeMetadata(snapshotDir, metadata);
+		wizard.showMessage(String.format("Snapshot '%s' of %s taken in %d ms", name, server.getDbName(),
+				System.currentTimeMillis() - start));
+	}
+
+	public void restore(String name) throws MojoExecutionException {
+		checkSupported();
+		Properties metadata = getMetadata(name);
+		if (metadata == null) {
+			throw new MojoExecutionException("There is no '" + name + "' snapshot for server " + server.getServerId());
+		}
+
+		long start = System.currentTimeMillis();
+		try {
+			if (Format.fromName(metadata.getProperty("format")) == Format.DATABASE) {
+				restoreDatabase(metadata.getProperty("snapshotDatabase"));
+			} else {
+				restoreDump(getSnapshotDir(name));
+			}
+		}
+		catch (SQLException | IOException e) {
+			throw new MojoExecutionException("Failed to restore the '" + name + "' snapshot of " + server.getDbName()
+					+ ": " + e.getMessage(), e);
+		}
+		wizard.showMessage(String.format("Restored snapshot '%s' taken at %s in %d ms", name,
+				metadata.getProperty("created"), System.currentTimeMillis() - start));
+	}
+
+	public void delete(String name) throws MojoExecutionException {
+		Properties metadata = getMetadata(name);
+		if (metadata != null && metadata.getProperty("snapshotDatabase") != null) {
+			try (Connection connection = connect(getAdminDatabase());
+				 Statement statement = connection.createStatement()) {
+				statement.execute("DROP DATABASE IF EXISTS " + quote(metadata.getProperty("snapshotDatabase")));
+			}
+			catch (SQLException e) {
+				throw new MojoExecutionException("Failed to drop the database of the '" + name + "' snapshot: "
+						+ e.getMessage(), e);
+			}
+		}
+		FileUtils.deleteQuietly(getSnapshotDir(name));
+	}
+
+	/**
+	 * Drops the snapshot databases of the server, e.g. when the server is deleted. A snapshot which cannot be
+	 * deleted is reported and the others are deleted anyway.
+	 */
+	public void deleteAll() {
+		for (String name : getSnapshotNames()) {
+			try {
+				delete(name);
+			}
+			catch (MojoExecutionException e) {
+				wizard.showWarning(e.getMessage());
+			}
+		}
+	}
+
+	public List<String> getSnapshotNames() {
+		List<String> names = new ArrayList<>();
+		File[] snapshotDirs = getSnapshotsDir().listFiles(dir -> new File(dir, METADATA_FILE).isFile());
+		if (snapshotDirs != null) {
+			for (File snapshotDir : snapshotDirs) {
+				names.add(snapshotDir.getName());
+			}
+		}
+		names.sort(null);
+		return names;
+	}
+
+	/**
+	 * @return the metadata of the snapshot or null if it does not exist
+	 */
+	public Properties getMetadata(String name) throws MojoExecutionException {
+		File metadataFile = new File(getSnapshotDir(name), METADATA_FILE);
+		if (!metadataFile.isFile()) {
+			return null;
+		}
+		return PropertiesUtils.loadPropertiesFromFile(metadataFile);
+	}
+
+	String getSnapshotDatabase(String name) throws MojoExecutionException {
+		String snapshotDb = server.getDbName() + "_snapshot_" + name.replace('-', '_');
+		if (snapshotDb.length() > MAX_DATABASE_NAME_LENGTH) {
+			throw new MojoExecutionException("The snapshot name '" + name + "' is too long for a database name");
+		}
+		return snapshotDb;
+	}
+
+	/**
+	 * @return the uri with the database replaced, keeping the parameters of the connection
+	 */
+	static String withDatabase(String uri, String database) {
+		int startOfDbName = uri.indexOf("/", uri.indexOf("//") + 2) + 1;
+		int endOfDbName = uri.length();
+		for (char separator : new char[] { '?', ';' }) {
+			int index = uri.indexOf(separator, startOfDbName);
+			if (index >= 0 && index < endOfDbName) {
+				endOfDbName = index;
+			}
+		}
+		return uri.substring(0, startOfDbName) + database + uri.substring(endOfDbName);
+	}
+
+	private void checkSupported() throws MojoExecutionException {
+		if (!server.isMySqlDb() && !server.isPostgreSqlDb()) {
+			throw new MojoExecutionException("Snapshots are only supported for MySQL and PostgreSQL databases");
+		}
+	}
+
+	private File getSnapshotsDir() {
+		return new File(server.getServerDirectory(), SNAPSHOTS_DIR);
+	}
+
+	private File getSnapshotDir(String name) throws MojoExecutionException {
+		if (!SNAPSHOT_NAME.matcher(name).matches()) {
+			throw new MojoExecutionException("Invalid snapshot name '" + name
+					+ "', use only letters, digits, '-' and '_'");
+		}
+		return new File(getSnapshotsDir(), name);
+	}
+
+	private void writeMetadata(File snapshotDir, Properties metadata) throws MojoExecutionException {
+		snapshotDir.mkdirs();
+		try (FileOutputStream out = new FileOutputStream(new File(snapshotDir, METADATA_FILE))) {
+			metadata.store(out, "Snapshot of the " + server.getServerId() + " server database");
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to write the metadata of the snapshot: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Replaces the target database with a copy of the source database, both on the server of the server database
+	 */
+	public void copyDatabase(String source, String target) throws SQLException {
+		try (Connection connection = connect(getAdminDatabase());
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP DATABASE IF EXISTS " + quote(target));
+			if (server.isPostgreSqlDb()) {
+				try {
+					// copies the files of the database, which requires that nobody is connected to it
+					statement.execute("CREATE DATABASE " + quote(target) + " TEMPLATE " + quote(source));
+				}
+				catch (SQLException e) {
+					throw new SQLException(e.getMessage() + ". Stop the server before taking or restoring snapshots.", e);
+				}
+				return;
+			}
+			statement.execute("CREATE DATABASE " + quote(target) + " DEFAULT CHARACTER SET utf8");
+		}
+		copyTables(source, target);
+	}
+
+	private void restoreDatabase(String snapshotDb) throws SQLException {
+		copyDatabase(snapshotDb, server.getDbName());
+	}
+
+	/**
+	 * Drops a database left over by a failed copy, failures are reported, but do not fail the caller
+	 */
+	void dropDatabaseQuietly(String database) {
+		try {
+			if (!databaseExists(database)) {
+				return;
+			}
+			try (Connection connection = connect(getAdminDatabase());
+				 Statement statement = connection.createStatement()) {
+				statement.execute("DROP DATABASE " + quote(database));
+			}
+		}
+		catch (SQLException e) {
+			wizard.showWarning("Unable to drop the " + database + " database: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Copies a MySQL database: the tables are created as SHOW CREATE TABLE reports them, which keeps their keys,
+	 * foreign keys and options, then their rows are copied in parallel with INSERT ... SELECT and finally the
+	 * routines, views and triggers are created, so that the triggers do not fire for the copied rows
+	 */
+	private void copyTables(String source, String target) throws SQLException {
+		List<String> tables = getTables(source);
+		try (Connection connection = connect(target);
+			 Statement statement = connection.createStatement()) {
+			// the tables referenced by foreign keys may not exist yet
+			statement.execute("SET FOREIGN_KEY_CHECKS=0");
+			for (String table : tables) {
+				statement.execute(getCreateTable(statement, quote(source) + "." + quote(table)));
+			}
+		}
+
+		Queue<String> remaining = new ConcurrentLinkedQueue<>(tables);
+		runInParallel(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SET FOREIGN_KEY_CHECKS=0");
+				statement.execute("SET UNIQUE_CHECKS=0");
+				String table;
+				while ((table = remaining.poll()) != null) {
+					statement.execute("INSERT INTO " + quote(target) + "." + quote(table) + " SELECT * FROM "
+							+ quote(source) + "." + quote(table));
+				}
+			}
+		});
+
+		try (Connection connection = connect(target);
+			 Statement statement = connection.createStatement()) {
+			for (String object : getSchemaObjects(connection, source)) {
+				statement.execute(object);
+			}
+		}
+	}
+
+	private String getCreateTable(Statement statement, String table) throws SQLException {
+		try (ResultSet createTable = statement.executeQuery("SHOW CREATE TABLE " + table)) {
+			createTable.next();
+			return createTable.getString(2);
+		}
+	}
+
+	/**
+	 * @return the statements creating the routines, views and triggers of a MySQL database, in the order in which
+	 * they can be created in another database. References to the database itself and DEFINER clauses are removed,
+	 * so that the objects are created in the database of the connection for the user of the connection.
+	 */
+	List<String> getSchemaObjects(Connection connection, String database) throws SQLException {
+		List<String> objects = new ArrayList<>();
+		for (String[] routine : query(connection, "SELECT routine_type, routine_name FROM information_schema.routines "
+				+ "WHERE routine_schema = ? ORDER BY routine_name", database)) {
+			objects.add(showCreate(connection, "SHOW CREATE " + routine[0] + " " + quote(database) + "." + quote(routine[1]),
+					3, database));
+		}
+
+		Map<String, String> views = new LinkedHashMap<>();
+		for (String[] view : query(connection, "SELECT table_name FROM information_schema.views "
+				+ "WHERE table_schema = ? ORDER BY table_name", database)) {
+			views.put(view[0], showCreate(connection, "SHOW CREATE VIEW " + quote(database) + "." + quote(view[0]), 2,
+					database));
+		}
+		objects.addAll(orderViews(views));
+
+		for (String[] trigger : query(connection, "SELECT trigger_name FROM information_schema.triggers "
+				+ "WHERE trigger_schema = ? ORDER BY event_object_table, action_order", database)) {
+			objects.add(showCreate(connection, "SHOW CREATE TRIGGER " + quote(database) + "." + quote(trigger[0]), 3,
+					database));
+		}
+		return objects;
+	}
+
+	private String showCreate(Connection connection, String sql, int column, String database) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet result = statement.executeQuery(sql)) {
+			String create = result.next() ? result.getString(column) : null;
+			if (create == null) {
+				throw new SQLException("Not permitted to read the definition with " + sql);
+			}
+			create = DEFINER.matcher(create).replaceFirst("");
+			return create.replace(quote(database) + ".", "");
+		}
+	}
+
+	/**
+	 * @return the statements of the views ordered so that each view is created after the views it selects from
+	 */
+	static List<String> orderViews(Map<String, String> views) {
+		List<String> ordered = new ArrayList<>();
+		Map<String, String> remaining = new LinkedHashMap<>(views);
+		while (!remaining.isEmpty()) {
+			List<String> independent = new ArrayList<>();
+			for (Map.Entry<String, String> view : remaining.entrySet()) {
+				boolean dependent = false;
+				for (String other : remaining.keySet()) {
+					if (!other.equals(view.getKey()) && view.getValue().contains("`" + other + "`")) {
+						dependent = true;
+						break;
+					}
+				}
+				if (!dependent) {
+					independent.add(view.getKey());
+				}
+			}
+			if (independent.isEmpty()) {
+				// a column named like another view, the database reports a real cycle when creating them
+				independent.addAll(remaining.keySet());
+			}
+			for (String view : independent) {
+				ordered.add(remaining.remove(view));
+			}
+		}
+		return ordered;
+	}
+
+	private List<String[]> query(Connection connection, String sql, String parameter) throws SQLException {
+		List<String[]> rows = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setString(1, parameter);
+			try (ResultSet result = statement.executeQuery()) {
+				int columns = result.getMetaData().getColumnCount();
+				while (result.next()) {
+					String[] row = new String[columns];
+					for (int i = 0; i < columns; i++) {
+						row[i] = result.getString(i + 1);
+					}
+					rows.add(row);
+				}
+			}
+		}
+		return rows;
+	}
+
+	private void dump(File snapshotDir) throws SQLException, IOException {
+		List<String> tables = getTables(server.getDbName());
+		File tablesDir = new File(snapshotDir, TABLES_DIR);
+		tablesDir.mkdirs();
+
+		try (Connection connection = connect(server.getDbName());
+			 Statement statement = connection.createStatement()) {
+			try (Writer schema = openWriter(new File(snapshotDir, SCHEMA_FILE))) {
+				for (String table : tables) {
+					schema.write("DROP TABLE IF EXISTS " + quote(table) + ";\n" + getCreateTable(statement, quote(table))
+							+ ";\n\n");
+				}
+			}
+			List<String> objects = getSchemaObjects(connection, server.getDbName());
+			if (!objects.isEmpty()) {
+				try (Writer writer = openWriter(new File(snapshotDir, OBJECTS_FILE))) {
+					// the bodies of routines and triggers contain semicolons
+					writer.write("DELIMITER " + OBJECTS_DELIMITER + "\n");
+					for (String object : objects) {
+						writer.write(object + OBJECTS_DELIMITER + "\n\n");
+					}
+					writer.write("DELIMITER ;\n");
+				}
+			}
+		}
+
+		Queue<String> remaining = new ConcurrentLinkedQueue<>(tables);
+		runInParallel(connection -> {
+			String table;
+			while ((table = remaining.poll()) != null) {
+				try (Writer writer = openWriter(new File(tablesDir, table + ".sql.gz"))) {
+					dumpTable(connection, table, writer);
+				}
+				catch (IOException e) {
+					throw new SQLException("Failed to write " + table + ": " + e.getMessage(), e);
+				}
+			}
+		});
+	}
+
+	private void dumpTable(Connection connection, String table, Writer writer) throws SQLException, IOException {
+		try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			// streams the rows instead of loading the whole table
+			statement.setFetchSize(Integer.MIN_VALUE);
+			try (ResultSet rows = statement.executeQuery("SELECT * FROM " + quote(table))) {
+				ResultSetMetaData columns = rows.getMetaData();
+				int rowsInInsert = 0;
+				while (rows.next()) {
+					writer.write(rowsInInsert == 0 ? "INSERT INTO " + quote(table) + " VALUES (" : ",(");
+					for (int i = 1; i <= columns.getColumnCount(); i++) {
+						if (i > 1) {
+							writer.write(',');
+						}
+						writeValue(rows, columns, i, writer);
+					}
+					writer.write(')');
+					if (++rowsInInsert == ROWS_PER_INSERT) {
+						writer.write(";\n");
+						rowsInInsert = 0;
+					}
+				}
+				if (rowsInInsert > 0) {
+					writer.write(";\n");
+				}
+			}
+		}
+	}
+
+	static void writeValue(ResultSet rows, ResultSetMetaData columns, int column, Writer writer)
+			throws SQLException, IOException {
+		String typeName = columns.getColumnTypeName(column).toUpperCase(Locale.ROOT);
+		if (typeName.contains("BLOB") || typeName.contains("BINARY")) {
+			byte[] bytes = rows.getBytes(column);
+			if (bytes == null) {
+				writer.write("NULL");
+			} else {
+				writer.write("X'");
+				for (byte b : bytes) {
+					writer.write(HEX_DIGITS[(b >> 4) & 0xF]);
+					writer.write(HEX_DIGITS[b & 0xF]);
+				}
+				writer.write('\'');
+			}
+		} else if (typeName.equals("BIT")) {
+			long value = rows.getLong(column);
+			writer.write(rows.wasNull() ? "NULL" : String.valueOf(value));
+		} else {
+			String value = rows.getString(column);
+			writer.write(value == null ? "NULL" : "'" + escape(value) + "'");
+		}
+	}
+
+	static String escape(String value) {
+		StringBuilder escaped = new StringBuilder(value.length() + 16);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '\\':
+					escaped.append("\\\\");
+					break;
+				case '\'':
+					escaped.append("\\'");
+					break;
+				case '\n':
+					escaped.append("\\n");
+					break;
+				case '\r':
+					escaped.append("\\r");
+					break;
+				case '\0':
+					escaped.append("\\0");
+					break;
+				default:
+					escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	private void restoreDump(File snapshotDir) throws SQLException, IOException {
+		try (Connection connection = connect(getAdminDatabase());
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP DATABASE IF EXISTS " + quote(server.getDbName()));
+			statement.execute("CREATE DATABASE " + quote(server.getDbName()) + " DEFAULT CHARACTER SET utf8");
+		}
+		try (Connection connection = connect(server.getDbName());
+			 Reader schema = openReader(new File(snapshotDir, SCHEMA_FILE))) {
+			new SqlDumpImporter(connection, true).importDump(schema);
+		}
+
+		File[] tableFiles = new File(snapshotDir, TABLES_DIR).listFiles();
+		Queue<File> remaining = new ConcurrentLinkedQueue<>();
+		if (tableFiles != null) {
+			remaining.addAll(Arrays.asList(tableFiles));
+		}
+		runInParallel(connection -> {
+			File tableFile;
+			while ((tableFile = remaining.poll()) != null) {
+				try (Reader reader = openReader(tableFile)) {
+					new SqlDumpImporter(connection, true).importDump(reader);
+				}
+				catch (IOException e) {
+					throw new SQLException("Failed to read " + tableFile.getName() + ": " + e.getMessage(), e);
+				}
+			}
+		});
+
+		File objectsFile = new File(snapshotDir, OBJECTS_FILE);
+		if (objectsFile.exists()) {
+			try (Connection connection = connect(server.getDbName());
+				 Reader objects = openReader(objectsFile)) {
+				new SqlDumpImporter(connection, true).importDump(objects);
+			}
+		}
+	}
+
+	public boolean databaseExists(String database) throws SQLException {
+		String query = server.isPostgreSqlDb() ? "SELECT 1 FROM pg_database WHERE datname = ?"
+				: "SELECT 1 FROM information_schema.schemata WHERE schema_name = ?";
+		try (Connection connection = connect(getAdminDatabase());
+			 PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, database);
+			try (ResultSet result = statement.executeQuery()) {
+				return result.next();
+			}
+		}
+	}
+
+	/**
+	 * @return the names of the databases on the server of the server database, which start with the prefix
+	 */
+	public List<String> getDatabases(String prefix) throws SQLException {
+		String query = server.isPostgreSqlDb() ? "SELECT datname FROM pg_database"
+				: "SELECT schema_name FROM information_schema.schemata";
+		List<String> databases = new ArrayList<>();
+		try (Connection connection = connect(getAdminDatabase());
+			 Statement statement = connection.createStatement();
+			 ResultSet result = statement.executeQuery(query)) {
+			while (result.next()) {
+				if (result.getString(1).startsWith(prefix)) {
+					databases.add(result.getString(1));
+				}
+			}
+		}
+		databases.sort(null);
+		return databases;
+	}
+
+	private List<String> getTables(String database) throws SQLException {
+		List<String> tables = new ArrayList<>();
+		try (Connection connection = connect(getAdminDatabase());
+			 PreparedStatement statement = connection.prepareStatement("SELECT table_name FROM information_schema.tables "
+					 + "WHERE table_schema = ? AND table_type = 'BASE TABLE' ORDER BY table_name")) {
+			statement.setString(1, database);
+			try (ResultSet result = statement.executeQuery()) {
+				while (result.next()) {
+					tables.add(result.getString(1));
+				}
+			}
+		}
+		return tables;
+	}
+
+	private interface ConnectionTask {
+
+		void run(Connection connection) throws SQLException;
+	}
+
+	/**
+	 * Runs the task in several threads, each with its own connection to the server database
+	 */
+	private void runInParallel(ConnectionTask task) throws SQLException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					try (Connection connection = connect(server.getDbName())) {
+						task.run(connection);
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new SQLException(e.getCause().getMessage(), e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private String getAdminDatabase() {
+		return server.isPostgreSqlDb() ? "postgres" : "";
+	}
+
+	Connection connect(String database) throws SQLException {
+		String uri = withDatabase(server.getDbUri(), database);
+		if (server.isMySqlDb()) {
+			uri = SqlDumpImporter.withRewrittenBatches(uri);
+		}
+		return DriverManager.getConnection(uri, server.getDbUser(), server.getDbPassword());
+	}
+
+	private String quote(String identifier) {
+		return server.isPostgreSqlDb() ? "\"" + identifier + "\"" : "`" + identifier + "`";
+	}
+
+	private static Writer openWriter(File file) throws IOException {
+		return new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file), 64 * 1024), StandardCharsets.UTF_8);
+	}
+
+	private static Reader openReader(File file) throws IOException {
+		return new InputStreamReader(new GZIPInputStream(new FileInputStream(file), 64 * 1024), StandardCharsets.UTF_8);
+	}
+}
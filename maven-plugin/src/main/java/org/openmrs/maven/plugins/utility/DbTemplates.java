@@ -0,0 +1,112 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+
+/**
+ * Caches the database of a server right after the initial dump has been imported as a template database in the
+ * SDK's Docker container, so that later setups with the same database engine, platform version and dump clone
+ * the template on the database server instead of importing the dump again.
+ * <p>
+ * Templates are kept as databases next to the server databases, as the container is shared by all servers and
+ * cloning a database is much cheaper than creating a container from a copied data volume. They are not dropped
+ * with a server, as other servers may be set up from them, but the delete goal drops them on request.
+ */
+public class DbTemplates {
+
+	static final String TEMPLATE_PREFIX = "openmrs_template_";
+
+	static final int KEY_LENGTH = 16;
+
+	private final Server server;
+
+	private final Wizard wizard;
+
+	private final DbSnapshots databases;
+
+	public DbTemplates(Server server, Wizard wizard) {
+		this(server, wizard, new DbSnapshots(server, wizard));
+	}
+
+	DbTemplates(Server server, Wizard wizard, DbSnapshots databases) {
+		this.server = server;
+		this.wizard = wizard;
+		this.databases = databases;
+	}
+
+	/**
+	 * @return the key of the template for the server and the dump, which identifies the database engine,
+	 * the platform version and the content of the dump
+	 */
+	public String getTemplateKey(InputStream dump) throws IOException {
+		MessageDigest digest = Checksums.sha1();
+		String engine = server.isPostgreSqlDb() ? "postgresql" : "mysql";
+		digest.update((engine + ":" + server.getPlatformVersion() + ":").getBytes(StandardCharsets.UTF_8));
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = dump.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return Checksums.toHex(digest.digest()).substring(0, KEY_LENGTH);
+	}
+
+	static String getTemplateDatabase(String key) {
+		return TEMPLATE_PREFIX + key;
+	}
+
+	/**
+	 * @return true if the server database was cloned from the template, false if there is no template yet
+	 */
+	public boolean restore(String key) {
+		String template = getTemplateDatabase(key);
+		try {
+			if (!databases.databaseExists(template)) {
+				return false;
+			}
+			long start = System.currentTimeMillis();
+			databases.copyDatabase(template, server.getDbName());
+			wizard.showMessage(String.format("Created the database from the %s template in %d ms", template,
+					System.currentTimeMillis() - start));
+			return true;
+		}
+		catch (SQLException e) {
+			wizard.showMessage("Unable to clone the " + template + " template, importing the dump instead: "
+					+ e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Drops all templates on the database server of the server, failures are reported, but do not fail the caller
+	 */
+	public void deleteAll() {
+		try {
+			for (String template : databases.getDatabases(TEMPLATE_PREFIX)) {
+				databases.dropDatabaseQuietly(template);
+				wizard.showMessage("Dropped the " + template + " template.");
+			}
+		}
+		catch (SQLException e) {
+			wizard.showWarning("Unable to list the database templates: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Saves the server database as the template, failures are reported, but do not fail the setup
+	 */
+	public void save(String key) {
+		String template = getTemplateDatabase(key);
+		try {
+			databases.copyDatabase(server.getDbName(), template);
+			wizard.showMessage("Cached the imported database as the " + template + " template for future setups.");
+		}
+		catch (SQLException e) {
+			wizard.showMessage("Unable to cache the imported database as a template: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds back the messages of a task running in the background while the main thread shows its own output, e.g. the
+ * database import of a setup while artifacts are downloaded, so that the output of both does not interleave.
+ * The messages held back are shown once the main thread waits for the task, later messages are shown right away.
+ */
+public class DeferredMessages {
+
+	private final Wizard wizard;
+
+	private final List<Object[]> pending = new ArrayList<>();
+
+	private boolean deferring = true;
+
+	public DeferredMessages(Wizard wizard) {
+		this.wizard = wizard;
+	}
+
+	/**
+	 * @return the wizard to be used by the background task, which defers its show... methods and passes all other
+	 * calls through
+	 */
+	public Wizard getWizard() {
+		return (Wizard) Proxy.newProxyInstance(Wizard.class.getClassLoader(), new Class<?>[] { Wizard.class },
+				(proxy, method, args) -> {
+					if (method.getName().startsWith("show") && method.getReturnType() == void.class) {
+						synchronized (this) {
+							if (deferring) {
+								pending.add(new Object[] { method, args });
+								return null;
+							}
+						}
+					}
+					return invoke(method, args);
+				});
+	}
+
+	/**
+	 * Shows the messages held back and stops deferring messages
+	 */
+	public synchronized void flush() {
+		deferring = false;
+		try {
+			for (Object[] message : pending) {
+				invoke((Method) message[0], (Object[]) message[1]);
+			}
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+		finally {
+			pending.clear();
+		}
+	}
+
+	private Object invoke(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(wizard, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package org.openmrs.maven.plugins.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.model.BaseSdkProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restricts the frontend modules installed into a server to the subset selected with -DspaModules
+ * and/or -DspaExcludeModules, so that developers working on a single microfrontend do not need to build
+ * and load all the other bundles of the distribution.
+ * <p>
+ * Module names can be given either with their npm scope (@openmrs/esm-login-app) or without it (esm-login-app).
+ */
+public class FrontendModuleFilter {
+
+	public static final String SPA_MODULES_PROPERTY = "spaModules";
+
+	public static final String SPA_EXCLUDE_MODULES_PROPERTY = "spaExcludeModules";
+
+	static final String IMPORT_MAP_FILE = "importmap.json";
+
+	static final String ROUTES_REGISTRY_FILE = "routes.registry.json";
+
+	private static final String IMPORTS = "imports";
+
+	private static final Logger log = LoggerFactory.getLogger(FrontendModuleFilter.class);
+
+	private final Set<String> includes;
+
+	private final Set<String> excludes;
+
+	public FrontendModuleFilter(String includes, String excludes) {
+		this.includes = parseModuleNames(includes);
+		this.excludes = parseModuleNames(excludes);
+	}
+
+	/**
+	 * @return the filter configured with -DspaModules and -DspaExcludeModules
+	 */
+	public static FrontendModuleFilter fromSystemProperties() {
+		return new FrontendModuleFilter(System.getProperty(SPA_MODULES_PROPERTY), System.getProperty(SPA_EXCLUDE_MODULES_PROPERTY));
+	}
+
+	/**
+	 * @return true if any module was included or excluded, false if all modules should be installed
+	 */
+	public boolean isActive() {
+		return !includes.isEmpty() || !excludes.isEmpty();
+	}
+
+	public boolean accepts(String moduleName) {
+		String unscopedName = moduleName.contains("/") ? StringUtils.substringAfter(moduleName, "/") : moduleName;
+		if (excludes.contains(moduleName) || excludes.contains(unscopedName)) {
+			return false;
+		}
+		return includes.isEmpty() || includes.contains(moduleName) || includes.contains(unscopedName);
+	}
+
+	/**
+	 * Removes the frontendModules.* entries which are not accepted from the spa build properties,
+	 * so that they are neither assembled nor listed in the generated import map
+	 *
+	 * @param spaBuildProperties the spa build properties without their "spa." prefix, modified in place
+	 * @return the names of the removed modules
+	 */
+	public List<String> filterBuildProperties(Map<String, String> spaBuildProperties) {
+		List<String> removed = new ArrayList<>();
+		String prefix = BaseSdkProperties.FRONTEND_MODULES + ".";
+		Iterator<String> keys = spaBuildProperties.keySet().iterator();
+		while (keys.hasNext()) {
+			String key = keys.next();
+			if (key.startsWith(prefix) && !accepts(key.substring(prefix.length()))) {
+				removed.add(key.substring(prefix.length()));
+				keys.remove();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes the modules which are not accepted from an already assembled SPA, i.e. from its import map,
+	 * its routes registry and the module directories themselves
+	 *
+	 * @param spaDir the directory containing importmap.json
+	 * @return the names of the removed modules
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> filterAssembledSpa(File spaDir) throws MojoExecutionException {
+		List<String> removed = new ArrayList<>();
+		File importMapFile = new File(spaDir, IMPORT_MAP_FILE);
+		if (!importMapFile.exists()) {
+			log.warn("No {} found in {}, frontend modules cannot be filtered", IMPORT_MAP_FILE, spaDir.getAbsolutePath());
+			return removed;
+		}
+
+		ObjectMapper om = new ObjectMapper();
+		try {
+			Map<String, Object> importMap = om.readValue(importMapFile, LinkedHashMap.class);
+			Map<String, String> imports = (Map<String, String>) importMap.get(IMPORTS);
+			if (imports == null) {
+				return removed;
+			}
+
+			Iterator<Map.Entry<String, String>> entries = imports.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<String, String> entry = entries.next();
+				if (!accepts(entry.getKey())) {
+					removed.add(entry.getKey());
+					deleteModuleDirectory(spaDir, entry.getValue());
+					entries.remove();
+				}
+			}
+			om.writeValue(importMapFile, importMap);
+
+			File routesFile = new File(spaDir, ROUTES_REGISTRY_FILE);
+			if (routesFile.exists()) {
+				Map<String, Object> routes = om.readValue(routesFile, LinkedHashMap.class);
+				routes.keySet().removeAll(removed);
+				om.writeValue(routesFile, routes);
+			}
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to filter frontend modules in " + spaDir.getAbsolutePath() + ": " + e.getMessage(), e);
+		}
+		return removed;
+	}
+
+	/**
+	 * Deletes the directory a relative import map url, like ./openmrs-esm-login-app-5.0.0/openmrs-esm-login-app.js, points to
+	 */
+	private void deleteModuleDirectory(File spaDir, String url) throws IOException {
+		String path = StringUtils.removeStart(url, "./");
+		if (path.contains("://") || path.startsWith("/") || !path.contains("/")) {
+			return;
+		}
+		File moduleDir = new File(spaDir, StringUtils.substringBefore(path, "/"));
+		if (moduleDir.isDirectory()) {
+			FileUtils.deleteDirectory(moduleDir);
+		}
+	}
+
+	private static Set<String> parseModuleNames(String moduleNames) {
+		Set<String> result = new LinkedHashSet<>();
+		if (StringUtils.isNotBlank(moduleNames)) {
+			for (String moduleName : moduleNames.split(",")) {
+				if (StringUtils.isNotBlank(moduleName)) {
+					result.add(moduleName.trim());
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,128 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.input.ProxyInputStream;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Reports the progress of a database import from the bytes read from the dump and the executed statements:
+ * percent complete, statements per second, MB/s and the estimated time left, so that a long import does not look
+ * like it hangs. The progress is reported while reading the dump, so also while a single large statement is read
+ * or when the importer does not report statements. Once the import is done, a summary line is appended to {@link #SUMMARY_FILE} in the server
+ * directory, which shows how fast imports were over time, e.g. to spot a slow disk or database configuration.
+ */
+public class ImportProgress implements SqlDumpImporter.ProgressListener {
+
+	public static final String SUMMARY_FILE = "db-import.log";
+
+	static final long REPORT_INTERVAL_MILLIS = 5000;
+
+	private static final double MB = 1024 * 1024;
+
+	private final Wizard wizard;
+
+	private final long totalBytes;
+
+	private final long reportIntervalMillis;
+
+	private final long start = System.currentTimeMillis();
+
+	private long lastReport = start;
+
+	private volatile long bytesRead;
+
+	private volatile long statements;
+
+	/**
+	 * @param totalBytes the size of the dump or a negative number if it is unknown
+	 */
+	public ImportProgress(Wizard wizard, long totalBytes) {
+		this(wizard, totalBytes, REPORT_INTERVAL_MILLIS);
+	}
+
+	ImportProgress(Wizard wizard, long totalBytes, long reportIntervalMillis) {
+		this.wizard = wizard;
+		this.totalBytes = totalBytes;
+		this.reportIntervalMillis = reportIntervalMillis;
+	}
+
+	/**
+	 * @return the stream counting the bytes read from the dump
+	 */
+	public InputStream count(InputStream dump) {
+		return new ProxyInputStream(dump) {
+
+			@Override
+			protected void afterRead(int n) {
+				if (n > 0) {
+					bytesRead += n;
+					report();
+				}
+			}
+		};
+	}
+
+	@Override
+	public void progress(long statements) {
+		this.statements = statements;
+		report();
+	}
+
+	private void report() {
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (now - lastReport < reportIntervalMillis) {
+				return;
+			}
+			lastReport = now;
+		}
+		wizard.showMessage(describeProgress(statements, now - start));
+	}
+
+	String describeProgress(long statements, long elapsedMillis) {
+		double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+		double bytesPerSecond = bytesRead / seconds;
+		StringBuilder message = new StringBuilder("Importing database: ");
+		if (totalBytes > 0) {
+			message.append(String.format(Locale.ROOT, "%d%% (%.1f of %.1f MB), ", Math.min(100, bytesRead * 100 / totalBytes),
+					bytesRead / MB, totalBytes / MB));
+		} else {
+			message.append(String.format(Locale.ROOT, "%.1f MB, ", bytesRead / MB));
+		}
+		message.append(String.format(Locale.ROOT, "%.0f statements/s, %.1f MB/s", statements / seconds, bytesPerSecond / MB));
+		if (totalBytes > 0 && bytesPerSecond > 0) {
+			long secondsLeft = (long) Math.max(0, (totalBytes - bytesRead) / bytesPerSecond);
+			message.append(String.format(Locale.ROOT, ", ETA %d:%02d", secondsLeft / 60, secondsLeft % 60));
+		}
+		return message.toString();
+	}
+
+	/**
+	 * Shows the summary of the import and appends it to the summary file in the server directory
+	 */
+	public void finish(File serverDir, String source, String engine, long statements) {
+		long elapsedMillis = System.currentTimeMillis() - start;
+		double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+		String summary = String.format(Locale.ROOT, "Imported %d statements (%.1f MB) from %s into %s in %.1f s: %.0f statements/s, "
+						+ "%.1f MB/s", statements, bytesRead / MB, source, engine, seconds, statements / seconds,
+				bytesRead / MB / seconds);
+		wizard.showMessage(summary);
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(new File(serverDir, SUMMARY_FILE), true))) {
+			writer.println(Instant.now() + " " + summary);
+		}
+		catch (IOException e) {
+			// the summary was shown anyway
+		}
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+}
@@ -0,0 +1,142 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Named sets of JVM options for the server started by the run goal. The heap is sized from the memory and
+ * processors of the machine, so the same profile neither starves a laptop nor wastes memory on a large CI host.
+ * <ul>
+ *     <li>dev - fast starts: C1 only, parallel GC and a moderate heap</li>
+ *     <li>low-memory - the smallest footprint that still runs OpenMRS: serial GC and a capped metaspace</li>
+ *     <li>demo - a longer running server: G1 and a larger heap</li>
+ *     <li>perf - throughput: G1, full JIT and a heap which is committed up front</li>
+ * </ul>
+ */
+public enum JvmProfile {
+
+	DEV("dev", 25, 1024, 2048),
+
+	LOW_MEMORY("low-memory", 15, 768, 1024),
+
+	DEMO("demo", 30, 1024, 3072),
+
+	PERF("perf", 50, 1536, 8192);
+
+	/**
+	 * -XX:+UseContainerSupport was added in JDK 10
+	 */
+	public static final int MIN_CONTAINER_SUPPORT_JDK_VERSION = 10;
+
+	/**
+	 * Options which are replaced by the profile, since the JVM refuses to start with two collectors selected
+	 */
+	private static final Pattern REPLACED_OPTIONS = Pattern.compile(
+			"(^|\\s)(-Xm[sx]\\S+|-XX:[+-]Use\\w*GC|-XX:(Max)?MetaspaceSize=\\S+|-XX:TieredStopAtLevel=\\S+)(?=\\s|$)");
+
+	private final String name;
+
+	private final int heapPercentage;
+
+	private final int minHeapMb;
+
+	private final int maxHeapMb;
+
+	JvmProfile(String name, int heapPercentage, int minHeapMb, int maxHeapMb) {
+		this.name = name;
+		this.heapPercentage = heapPercentage;
+		this.minHeapMb = minHeapMb;
+		this.maxHeapMb = maxHeapMb;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public static JvmProfile fromName(String name) throws MojoExecutionException {
+		for (JvmProfile profile : values()) {
+			if (profile.name.equalsIgnoreCase(StringUtils.trim(name))) {
+				return profile;
+			}
+		}
+		List<String> names = new ArrayList<>();
+		for (JvmProfile profile : values()) {
+			names.add(profile.name);
+		}
+		throw new MojoExecutionException("Unknown JVM profile '" + name + "', use one of: " + StringUtils.join(names, ", "));
+	}
+
+	/**
+	 * @param jvmOptions the options the server would be started with otherwise
+	 * @param containerSupport whether the JVM supports -XX:+UseContainerSupport, i.e. Java 10 or newer
+	 * @return the options with the heap, GC, metaspace and JIT options of the profile
+	 */
+	public String apply(String jvmOptions, boolean containerSupport) {
+		return apply(jvmOptions, getTotalMemoryMb(), Runtime.getRuntime().availableProcessors(), containerSupport);
+	}
+
+	String apply(String jvmOptions, long totalMemoryMb, int processors, boolean containerSupport) {
+		String options = REPLACED_OPTIONS.matcher(StringUtils.defaultString(jvmOptions)).replaceAll(" ").trim();
+		return (options + " " + getOptions(totalMemoryMb, processors, containerSupport)).trim();
+	}
+
+	String getOptions(long totalMemoryMb, int processors, boolean containerSupport) {
+		long heapMb = Math.max(minHeapMb, Math.min(maxHeapMb, totalMemoryMb * heapPercentage / 100));
+		List<String> options = new ArrayList<>();
+		options.add("-Xmx" + heapMb + "m");
+		switch (this) {
+			case DEV:
+				options.add("-Xms" + Math.min(heapMb, 512) + "m");
+				options.add(processors > 1 ? "-XX:+UseParallelGC" : "-XX:+UseSerialGC");
+				options.add("-XX:TieredStopAtLevel=1");
+				options.add("-XX:MaxMetaspaceSize=512m");
+				break;
+			case LOW_MEMORY:
+				options.add("-Xms256m");
+				options.add("-XX:+UseSerialGC");
+				options.add("-XX:TieredStopAtLevel=1");
+				options.add("-XX:MaxMetaspaceSize=384m");
+				options.add("-Xss512k");
+				break;
+			case DEMO:
+				options.add("-Xms" + heapMb / 2 + "m");
+				options.add(processors > 1 ? "-XX:+UseG1GC" : "-XX:+UseSerialGC");
+				options.add("-XX:MaxMetaspaceSize=768m");
+				break;
+			case PERF:
+				options.add("-Xms" + heapMb + "m");
+				options.add(processors > 1 ? "-XX:+UseG1GC" : "-XX:+UseSerialGC");
+				options.add("-XX:MetaspaceSize=256m");
+				options.add("-XX:ParallelGCThreads=" + processors);
+				options.add("-XX:+AlwaysPreTouch");
+				break;
+		}
+		if (containerSupport) {
+			// limit the JVM to the cgroup of a container rather than the memory and processors of the host
+			options.add("-XX:+UseContainerSupport");
+			options.add("-XX:+ExitOnOutOfMemoryError");
+		}
+		return StringUtils.join(options, " ");
+	}
+
+	/**
+	 * @return the physical memory of the machine, or the limit of the container the SDK runs in
+	 */
+	static long getTotalMemoryMb() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			long total = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+			if (total > 0) {
+				return total / (1024 * 1024);
+			}
+		}
+		// the default max heap is a quarter of the physical memory
+		return Runtime.getRuntime().maxMemory() * 4 / (1024 * 1024);
+	}
+}
@@ -17,6 +17,7 @@ import org.apache.maven.project.MavenProject;
 import org.openmrs.maven.plugins.model.Artifact;
 import org.openmrs.maven.plugins.model.NodeDistro;
 import org.openmrs.maven.plugins.model.PackageJson;
+import org.openmrs.maven.plugins.model.Server;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.twdata.maven.mojoexecutor.MojoExecutor;
@@ -31,10 +32,24 @@ import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
-
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.openmrs.maven.plugins.utility.PropertiesUtils.getSdkProperties;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
@@ -54,10 +69,20 @@ public class OwaHelper {
 	public static final String NODE_VERSION_KEY = "node";
 	public static final String NPM_VERSION_KEY = "npm";
 	public static final String OWA_PACKAGE_EXTENSION = ".owa";
+	public static final String EXPAND_OWAS_PROPERTY = "expandOwas";
+	public static final String OWA_VERSION_MARKER = ".sdk-owa-version";
+
+	static final String NODE_INDEX_URL = "https://nodejs.org/dist/index.json";
+	static final String NODE_INDEX_FILE = "node-index.json";
+	static final String NODE_INDEX_METADATA_FILE = "node-index.properties";
+	static final long NODE_INDEX_TTL = TimeUnit.HOURS.toMillis(24);
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
 
 	private MavenEnvironment mavenEnvironment;
 	private Wizard wizard;
 	private File installationDir;
+	private File nodeIndexCacheDir;
 
 	public OwaHelper() {}
 
@@ -67,28 +92,172 @@ public class OwaHelper {
 	}
 
 	public void downloadOwa(File owaDir, Artifact owa, ModuleInstaller moduleInstaller) throws MojoExecutionException {
+		downloadOwas(owaDir, Collections.singletonList(owa), moduleInstaller);
+	}
 
-		if (owa.getArtifactId().startsWith("openmrs-owa-")) {
-			owa.setArtifactId(owa.getArtifactId().substring(12));
+	/**
+	 * Downloads the given OWAs with a single Maven execution and installs them into the owa directory.
+	 * <p>
+	 * If enabled with -DexpandOwas, the OWAs are installed already expanded, which spares the OWA module
+	 * from unpacking them on the first server start. A version marker is written into each expanded OWA,
+	 * so OWAs that are already expanded in the requested version are not downloaded again.
+	 */
+	public void downloadOwas(File owaDir, List<Artifact> owas, ModuleInstaller moduleInstaller) throws MojoExecutionException {
+		boolean expand = isExpandOwasEnabled();
+		List<Artifact> owasToDownload = new ArrayList<>();
+		for (Artifact owa : owas) {
+			if (owa.getArtifactId().startsWith("openmrs-owa-")) {
+				owa.setArtifactId(owa.getArtifactId().substring(12));
+			}
+			if (expand && isExpanded(owaDir, owa)) {
+				logger.info("OWA {} is already expanded in {}", owa, owaDir);
+			}
+			else {
+				owasToDownload.add(owa);
+			}
+		}
+		if (owasToDownload.isEmpty()) {
+			return;
 		}
 
-		moduleInstaller.installModule(owa, owaDir.getAbsolutePath());
+		showMessage(String.format("Downloading %d OWA(s): %s", owasToDownload.size(), owasToDownload));
+		moduleInstaller.installModules(owasToDownload, owaDir.getAbsolutePath());
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(owasToDownload.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Artifact owa : owasToDownload) {
+				futures.add(executor.submit(() -> {
+					installOwaFile(owaDir, owa, expand);
+					showMessage("Installed OWA " + owa + (expand ? " expanded" : ""));
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while installing OWAs", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e.getCause();
+			}
+			throw new MojoExecutionException("Unable to install OWAs: " + e.getCause().getMessage(), e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void showMessage(String message) {
+		if (wizard != null) {
+			wizard.showMessage(message);
+		} else {
+			logger.info(message);
+		}
+	}
+
+	/**
+	 * @return true if OWAs should be installed expanded, as requested with -DexpandOwas or in sdk.properties
+	 */
+	public static boolean isExpandOwasEnabled() throws MojoExecutionException {
+		String value = System.getProperty(EXPAND_OWAS_PROPERTY);
+		if (StringUtils.isBlank(value)) {
+			value = getSdkProperties().getProperty(EXPAND_OWAS_PROPERTY);
+		}
+		return Boolean.parseBoolean(value);
+	}
+
+	private void installOwaFile(File owaDir, Artifact owa, boolean expand) throws MojoExecutionException {
 		File owaFile = new File(owaDir, owa.getArtifactId() + "-" + owa.getVersion() + "." + owa.getType());
 		if (!owaFile.exists()) {
 			throw new MojoExecutionException("Unable to download OWA " + owa + " from Maven");
 		}
 
-		File renamedFile = new File(owaDir, getOwaBaseName(owa) + OWA_PACKAGE_EXTENSION);
-
+		String owaBaseName = getOwaBaseName(owa);
+		File renamedFile = new File(owaDir, owaBaseName + OWA_PACKAGE_EXTENSION);
 		if (renamedFile.exists()) {
 			renamedFile.delete();
 		}
 
+		if (!expand) {
+			try {
+				FileUtils.moveFile(owaFile, renamedFile);
+			}
+			catch (IOException ioe) {
+				throw new MojoExecutionException("Unable to move OWA file to " + renamedFile, ioe);
+			}
+			return;
+		}
+
+		File expandedDir = new File(owaDir, owaBaseName);
+		File tempDir = new File(owaDir, owaBaseName + ".tmp");
 		try {
-			FileUtils.moveFile(owaFile, renamedFile);
+			FileUtils.deleteDirectory(tempDir);
+			unzip(owaFile, tempDir);
+			FileUtils.writeStringToFile(new File(tempDir, OWA_VERSION_MARKER), owa.toString(), StandardCharsets.UTF_8);
+			FileUtils.deleteDirectory(expandedDir);
+			FileUtils.moveDirectory(tempDir, expandedDir);
+			FileUtils.forceDelete(owaFile);
 		}
 		catch (IOException ioe) {
-			throw new MojoExecutionException("Unable to move OWA file to " + renamedFile, ioe);
+			FileUtils.deleteQuietly(tempDir);
+			throw new MojoExecutionException("Unable to expand OWA " + owa + " to " + expandedDir + ": " + ioe.getMessage(), ioe);
+		}
+	}
+
+	private boolean isExpanded(File owaDir, Artifact owa) {
+		File marker = new File(new File(owaDir, getOwaBaseName(owa)), OWA_VERSION_MARKER);
+		try {
+			return marker.exists() && owa.toString().equals(FileUtils.readFileToString(marker, StandardCharsets.UTF_8).trim());
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static void unzip(File zip, File targetDir) throws IOException {
+		Path targetPath = targetDir.toPath().toAbsolutePath().normalize();
+		try (ZipFile zipFile = new ZipFile(zip)) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				Path entryPath = targetPath.resolve(entry.getName()).normalize();
+				if (!entryPath.startsWith(targetPath)) {
+					throw new IOException("Entry " + entry.getName() + " is outside of the target directory");
+				}
+				if (entry.isDirectory()) {
+					Files.createDirectories(entryPath);
+				}
+				else {
+					Files.createDirectories(entryPath.getParent());
+					try (InputStream in = zipFile.getInputStream(entry)) {
+						Files.copy(in, entryPath, StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes gzip siblings for the assets of OWAs which are already expanded in the given directory,
+	 * if enabled with -DprecompressAssets. Packed .owa files are left as they are,
+	 * so that they stay identical to the released artifacts.
+	 */
+	public void precompressOwas(File owaDir) throws MojoExecutionException {
+		if (!StaticAssetCompressor.isEnabled()) {
+			return;
+		}
+		File[] expandedOwas = owaDir.listFiles(File::isDirectory);
+		if (expandedOwas != null) {
+			StaticAssetCompressor compressor = new StaticAssetCompressor();
+			for (File expandedOwa : expandedOwas) {
+				compressor.compressDirectory(expandedOwa);
+			}
 		}
 	}
 
@@ -314,21 +483,76 @@ public class OwaHelper {
 		}
 	}
 
+	/**
+	 * Returns the Node distributions listed in the nodejs.org release index.
+	 * <p>
+	 * The index is cached in the SDK directory. Within {@link #NODE_INDEX_TTL} the cached copy is used as is,
+	 * afterwards it is revalidated with a conditional GET. If nodejs.org cannot be reached, the cached copy
+	 * is used regardless of its age.
+	 */
 	public List<NodeDistro> getNodeDistros() throws MojoExecutionException {
-		ObjectMapper om = new ObjectMapper();
-		om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		File cacheDir = nodeIndexCacheDir != null ? nodeIndexCacheDir : Server.getServersPath().resolve(SDKConstants.OPENMRS_SDK_CACHE).toFile();
+		File indexFile = new File(cacheDir, NODE_INDEX_FILE);
+		File metadataFile = new File(cacheDir, NODE_INDEX_METADATA_FILE);
+
+		if (indexFile.exists() && System.currentTimeMillis() - indexFile.lastModified() < NODE_INDEX_TTL) {
+			return readNodeDistros(indexFile);
+		}
 
-		HttpURLConnection con;
 		try {
-			con = (HttpURLConnection) new URL("https://nodejs.org/dist/index.json").openConnection();
+			Properties metadata = metadataFile.exists() && indexFile.exists() ? PropertiesUtils.loadPropertiesFromFile(metadataFile) : new Properties();
+			HttpURLConnection con = (HttpURLConnection) new URL(NODE_INDEX_URL).openConnection();
 			con.setRequestMethod("GET");
+			con.setConnectTimeout(10000);
+			con.setReadTimeout(30000);
+			if (metadata.getProperty(ETAG) != null) {
+				con.setRequestProperty("If-None-Match", metadata.getProperty(ETAG));
+			}
+			if (metadata.getProperty(LAST_MODIFIED) != null) {
+				con.setRequestProperty("If-Modified-Since", metadata.getProperty(LAST_MODIFIED));
+			}
 
-			return om.readValue(con.getInputStream(), new TypeReference<List<NodeDistro>>() {});
-		} catch (IOException e) {
+			if (con.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				indexFile.setLastModified(System.currentTimeMillis());
+				return readNodeDistros(indexFile);
+			}
+
+			cacheDir.mkdirs();
+			File tempFile = new File(cacheDir, NODE_INDEX_FILE + ".tmp");
+			try (InputStream in = con.getInputStream()) {
+				Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			List<NodeDistro> nodeDistros = readNodeDistros(tempFile);
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+			metadata = new Properties();
+			if (con.getHeaderField("ETag") != null) {
+				metadata.setProperty(ETAG, con.getHeaderField("ETag"));
+			}
+			if (con.getHeaderField("Last-Modified") != null) {
+				metadata.setProperty(LAST_MODIFIED, con.getHeaderField("Last-Modified"));
+			}
+			PropertiesUtils.savePropertiesChangesToFile(metadata, metadataFile);
+			return nodeDistros;
+		} catch (IOException | MojoExecutionException e) {
+			if (indexFile.exists()) {
+				logger.warn("Failed to fetch node distributions, using the cached copy from {}: {}", indexFile, e.getMessage());
+				return readNodeDistros(indexFile);
+			}
 			throw new MojoExecutionException("Failed to fetch node distributions " + e.getMessage(), e);
 		}
 	}
 
+	private List<NodeDistro> readNodeDistros(File indexFile) throws MojoExecutionException {
+		ObjectMapper om = new ObjectMapper();
+		om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		try {
+			return om.readValue(indexFile, new TypeReference<List<NodeDistro>>() {});
+		} catch (IOException e) {
+			throw new MojoExecutionException("Failed to read node distributions from " + indexFile + " " + e.getMessage(), e);
+		}
+	}
+
 	public static class SemVersion {
 		Expression expression;
 		String rawVersion;
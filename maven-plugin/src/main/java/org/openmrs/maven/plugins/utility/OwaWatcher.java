@@ -0,0 +1,275 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the sources of an OWA project, rebuilds it after changes and copies the changed build output
+ * into the OWA directory of a server, so a running server picks up the changes without reinstalling the OWA.
+ */
+public class OwaWatcher {
+
+	/**
+	 * Directories of an OWA project which never contain sources
+	 */
+	static final List<String> IGNORED_DIRECTORIES = Arrays.asList("node_modules", "node", "dist", "target", ".git", ".idea");
+
+	static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+	/**
+	 * How long to wait for the build output to appear after a build, e.g. when the build cleans it first
+	 */
+	static final long OUTPUT_WAIT_MILLIS = 5000;
+
+	static final long OUTPUT_POLL_MILLIS = 250;
+
+	private static final Logger log = LoggerFactory.getLogger(OwaWatcher.class);
+
+	/**
+	 * The build run after each burst of changes
+	 */
+	public interface BuildAction {
+
+		void build() throws MojoExecutionException;
+	}
+
+	private final Path projectDir;
+
+	private final Path outputDir;
+
+	private final Path targetDir;
+
+	private final BuildAction buildAction;
+
+	private final long debounceMillis;
+
+	/**
+	 * Regenerates the gzip siblings of changed assets, null if the assets are not pre-compressed
+	 */
+	private final StaticAssetCompressor compressor;
+
+	public OwaWatcher(File projectDir, File outputDir, File targetDir, BuildAction buildAction) {
+		this(projectDir, outputDir, targetDir, buildAction, null, DEFAULT_DEBOUNCE_MILLIS);
+	}
+
+	public OwaWatcher(File projectDir, File outputDir, File targetDir, BuildAction buildAction,
+			StaticAssetCompressor compressor, long debounceMillis) {
+		this.projectDir = projectDir.toPath().toAbsolutePath();
+		this.outputDir = outputDir.toPath().toAbsolutePath();
+		this.targetDir = targetDir.toPath().toAbsolutePath();
+		this.buildAction = buildAction;
+		this.compressor = compressor;
+		this.debounceMillis = debounceMillis;
+	}
+
+	/**
+	 * Builds and syncs the OWA once, then keeps rebuilding it on changes until the thread is interrupted
+	 */
+	public void watch() throws MojoExecutionException {
+		try (WatchService watchService = projectDir.getFileSystem().newWatchService()) {
+			rebuild();
+			registerRecursively(watchService, projectDir);
+			log.info("Watching {} for changes", projectDir);
+
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.take();
+				boolean sourceChanged = handleEvents(watchService, key);
+
+				// wait until the burst of changes is over, e.g. when an IDE saves several files at once
+				while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+					sourceChanged |= handleEvents(watchService, key);
+				}
+
+				if (sourceChanged) {
+					rebuild();
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to watch " + projectDir + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Copies new and changed files from the build output into the target directory and removes the files
+	 * which no longer exist in the output. The files written by the SDK, which are the version marker of an
+	 * expanded OWA and the gzip siblings of the assets, are kept, except for the gzip siblings of changed or
+	 * removed assets, which are regenerated if the assets are pre-compressed and removed otherwise.
+	 *
+	 * @return the number of copied or removed files
+	 */
+	public int sync() throws MojoExecutionException {
+		if (!Files.isDirectory(outputDir)) {
+			throw new MojoExecutionException("Build output not found at " + outputDir);
+		}
+		int changes = 0;
+		try {
+			Set<Path> outputFiles = new HashSet<>();
+			for (Path source : listFiles(outputDir)) {
+				outputFiles.add(outputDir.relativize(source));
+			}
+			for (Path relativePath : outputFiles) {
+				Path source = outputDir.resolve(relativePath);
+				Path target = targetDir.resolve(relativePath);
+				if (!Files.exists(target) || !FileUtils.contentEquals(source.toFile(), target.toFile())) {
+					Files.createDirectories(target.getParent());
+					Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+					changes++;
+
+					// a stale gzip sibling would be served instead of the changed asset
+					Path compressed = getCompressedPath(relativePath);
+					if (!outputFiles.contains(compressed)) {
+						Files.deleteIfExists(targetDir.resolve(compressed));
+					}
+				}
+			}
+			if (Files.isDirectory(targetDir)) {
+				for (Path target : listFiles(targetDir)) {
+					Path relativePath = targetDir.relativize(target);
+					if (!outputFiles.contains(relativePath) && !isOwnedBySdk(relativePath, outputFiles)) {
+						Files.delete(target);
+						changes++;
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to copy " + outputDir + " to " + targetDir + ": " + e.getMessage(), e);
+		}
+		if (compressor != null && changes > 0) {
+			compressor.compressDirectory(targetDir.toFile());
+		}
+		return changes;
+	}
+
+	/**
+	 * @return true if the file is not from the build output, but was written by the SDK for a file which is
+	 */
+	private static boolean isOwnedBySdk(Path relativePath, Set<Path> outputFiles) {
+		if (relativePath.toString().equals(OwaHelper.OWA_VERSION_MARKER)) {
+			return true;
+		}
+		String fileName = relativePath.getFileName().toString();
+		if (fileName.endsWith(StaticAssetCompressor.GZIP_EXTENSION)) {
+			String assetName = fileName.substring(0, fileName.length() - StaticAssetCompressor.GZIP_EXTENSION.length());
+			return outputFiles.contains(relativePath.resolveSibling(assetName));
+		}
+		return false;
+	}
+
+	private static Path getCompressedPath(Path relativePath) {
+		return relativePath.resolveSibling(relativePath.getFileName() + StaticAssetCompressor.GZIP_EXTENSION);
+	}
+
+	private void rebuild() throws InterruptedException {
+		long start = System.currentTimeMillis();
+		try {
+			buildAction.build();
+		}
+		catch (MojoExecutionException e) {
+			// keep watching, the next change may fix the build
+			log.error("OWA build failed: {}", e.getMessage());
+			return;
+		}
+
+		long deadline = System.currentTimeMillis() + OUTPUT_WAIT_MILLIS;
+		while (!Files.isDirectory(outputDir) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(OUTPUT_POLL_MILLIS);
+		}
+		if (!Files.isDirectory(outputDir)) {
+			log.warn("Build output not found at {}, it will be synced after the next change", outputDir);
+			return;
+		}
+
+		try {
+			int changes = sync();
+			log.info("Rebuilt OWA and updated {} files in {} in {} ms", changes, targetDir, System.currentTimeMillis() - start);
+		}
+		catch (MojoExecutionException e) {
+			log.error("{}, it will be synced after the next change", e.getMessage());
+		}
+	}
+
+	private boolean handleEvents(WatchService watchService, WatchKey key) throws IOException {
+		boolean sourceChanged = false;
+		Path dir = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				sourceChanged = true;
+				continue;
+			}
+			Path changed = dir.resolve((Path) event.context());
+			if (isIgnored(changed)) {
+				continue;
+			}
+			sourceChanged = true;
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+				registerRecursively(watchService, changed);
+			}
+		}
+		key.reset();
+		return sourceChanged;
+	}
+
+	private void registerRecursively(WatchService watchService, Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (!dir.equals(projectDir) && isIgnored(dir)) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	boolean isIgnored(Path path) {
+		if (path.startsWith(outputDir) || path.startsWith(targetDir)) {
+			return true;
+		}
+		Path relativePath = projectDir.relativize(path);
+		for (Path element : relativePath) {
+			if (IGNORED_DIRECTORIES.contains(element.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<Path> listFiles(Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+	}
+}
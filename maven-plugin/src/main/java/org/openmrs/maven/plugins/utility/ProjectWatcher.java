@@ -0,0 +1,187 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the src directories of Maven projects, including those of their submodules, and reports which
+ * projects changed once a burst of changes is over, so that they can be rebuilt while the server runs.
+ */
+public class ProjectWatcher {
+
+	static final List<String> IGNORED_DIRECTORIES = Arrays.asList("target", "node_modules", "node", ".git", ".idea");
+
+	static final String SOURCE_DIRECTORY = "src";
+
+	static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+
+	private static final Logger log = LoggerFactory.getLogger(ProjectWatcher.class);
+
+	/**
+	 * The action run for each project which changed
+	 */
+	public interface ChangeAction {
+
+		void changed(File projectDir) throws MojoExecutionException;
+	}
+
+	private final List<Path> projectDirs = new ArrayList<>();
+
+	private final ChangeAction changeAction;
+
+	private final long debounceMillis;
+
+	public ProjectWatcher(List<File> projectDirs, ChangeAction changeAction) {
+		this(projectDirs, changeAction, DEFAULT_DEBOUNCE_MILLIS);
+	}
+
+	public ProjectWatcher(List<File> projectDirs, ChangeAction changeAction, long debounceMillis) {
+		for (File projectDir : projectDirs) {
+			this.projectDirs.add(projectDir.toPath().toAbsolutePath().normalize());
+		}
+		this.changeAction = changeAction;
+		this.debounceMillis = debounceMillis;
+	}
+
+	/**
+	 * Runs the change action for changed projects until the thread is interrupted
+	 */
+	public void watch() throws MojoExecutionException {
+		try (WatchService watchService = projectDirs.get(0).getFileSystem().newWatchService()) {
+			for (Path projectDir : projectDirs) {
+				registerRecursively(watchService, projectDir);
+				log.info("Watching sources of {} for changes", projectDir);
+			}
+
+			while (!Thread.currentThread().isInterrupted()) {
+				Set<Path> changedProjects = new LinkedHashSet<>();
+				handleEvents(watchService, watchService.take(), changedProjects);
+
+				// wait until the burst of changes is over, e.g. when an IDE saves several files at once
+				WatchKey key;
+				while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+					handleEvents(watchService, key, changedProjects);
+				}
+
+				for (Path projectDir : changedProjects) {
+					try {
+						changeAction.changed(projectDir.toFile());
+					}
+					catch (MojoExecutionException e) {
+						// keep watching, the next change may fix the build
+						log.error("Failed to rebuild {}: {}", projectDir, e.getMessage());
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to watch " + projectDirs + ": " + e.getMessage(), e);
+		}
+	}
+
+	private void handleEvents(WatchService watchService, WatchKey key, Set<Path> changedProjects) throws IOException {
+		Path dir = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				Path projectDir = findProject(dir);
+				if (projectDir != null) {
+					changedProjects.add(projectDir);
+				}
+				continue;
+			}
+			Path changed = dir.resolve((Path) event.context());
+			if (!isSource(changed)) {
+				continue;
+			}
+			changedProjects.add(findProject(changed));
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+				registerRecursively(watchService, changed);
+			}
+		}
+		key.reset();
+	}
+
+	private void registerRecursively(WatchService watchService, Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Path projectDir = findProject(dir);
+				if (projectDir == null || isIgnored(projectDir.relativize(dir))) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				// directories above src are only walked to find the src directories of submodules
+				if (isSource(dir)) {
+					dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * @return the watched project containing the path, the innermost one if projects are nested
+	 */
+	Path findProject(Path path) {
+		Path normalized = path.toAbsolutePath().normalize();
+		Path found = null;
+		for (Path projectDir : projectDirs) {
+			if (normalized.startsWith(projectDir) && (found == null || projectDir.startsWith(found))) {
+				found = projectDir;
+			}
+		}
+		return found;
+	}
+
+	boolean isSource(Path path) {
+		Path projectDir = findProject(path);
+		if (projectDir == null) {
+			return false;
+		}
+		Path relativePath = projectDir.relativize(path.toAbsolutePath().normalize());
+		if (isIgnored(relativePath)) {
+			return false;
+		}
+		for (Path element : relativePath) {
+			if (SOURCE_DIRECTORY.equals(element.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isIgnored(Path relativePath) {
+		for (Path element : relativePath) {
+			if (IGNORED_DIRECTORIES.contains(element.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
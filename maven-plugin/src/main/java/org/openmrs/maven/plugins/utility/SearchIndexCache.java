@@ -0,0 +1,244 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Caches the Lucene search index built by the first start of a server in the SDK cache directory, so that later
+ * setups of a server from the same dump, platform version and distribution restore the index instead of rebuilding
+ * it from the whole database on the first start. The distribution is part of the key, as its modules and
+ * configuration add data to the database on the first start.
+ * <p>
+ * The key is remembered in the server properties when no index was cached for it yet. The run goal then captures
+ * the index as soon as OpenMRS reports it as complete by setting the search.indexVersion global property, which
+ * happens before the server is used much, and removes the key from the server properties once it is cached.
+ */
+public class SearchIndexCache {
+
+	public static final String KEY_PROPERTY = "search.index.key";
+
+	static final String SEARCH_INDEX_DIR = "search-index";
+
+	/**
+	 * The directory in the application data directory, which is the server directory, where OpenMRS keeps the index
+	 */
+	static final String LUCENE_DIR = "lucene";
+
+	static final String METADATA_FILE = "search-index.properties";
+
+	static final String INDEX_VERSION = "indexVersion";
+
+	static final long CAPTURE_INTERVAL_MILLIS = 15000;
+
+	static final long MAX_CAPTURE_WAIT_MILLIS = 60 * 60 * 1000;
+
+	static final int KEY_LENGTH = 16;
+
+	private static final String SELECT_INDEX_VERSION_SQL =
+			"SELECT property_value FROM global_property WHERE property = 'search.indexVersion'";
+
+	private static final String INSERT_INDEX_VERSION_SQL =
+			"INSERT INTO global_property (property, property_value, uuid) VALUES ('search.indexVersion', ?, ?)";
+
+	private final Server server;
+
+	private final Wizard wizard;
+
+	private final File cacheDir;
+
+	public SearchIndexCache(Server server, Wizard wizard) {
+		this(server, wizard,
+				Server.getServersPath().resolve(SDKConstants.OPENMRS_SDK_CACHE).resolve(SEARCH_INDEX_DIR).toFile());
+	}
+
+	public SearchIndexCache(Server server, Wizard wizard, File cacheDir) {
+		this.server = server;
+		this.wizard = wizard;
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * @return the key of the index of a server set up from the dump with the key, which identifies the database
+	 * engine, the platform version and the dump, and the distribution of the server
+	 */
+	public static String getKey(Server server, String dumpKey) {
+		String distro = server.getDistroGroupId() + ":" + server.getDistroArtifactId() + ":" + server.getVersion();
+		MessageDigest digest = Checksums.sha1();
+		digest.update((dumpKey + ":" + distro).getBytes(StandardCharsets.UTF_8));
+		return Checksums.toHex(digest.digest()).substring(0, KEY_LENGTH);
+	}
+
+	public boolean contains(String key) {
+		return new File(getEntryDir(key), METADATA_FILE).exists();
+	}
+
+	/**
+	 * Copies the cached index to the server and marks it as up to date in the database, so that OpenMRS does not
+	 * rebuild it on start. Failures are reported, but do not fail the setup.
+	 *
+	 * @return true if the index was restored, false if there is none for the key and the index must be rebuilt
+	 */
+	public boolean restore(String key, Connection connection) {
+		if (!contains(key)) {
+			return false;
+		}
+		try {
+			String indexVersion = readMetadata(key).getProperty(INDEX_VERSION);
+			File indexDir = new File(server.getServerDirectory(), LUCENE_DIR);
+			FileUtils.deleteDirectory(indexDir);
+			FileUtils.copyDirectory(new File(getEntryDir(key), LUCENE_DIR), indexDir);
+			setIndexVersion(connection, indexVersion);
+			wizard.showMessage("Restored the search index cached by an earlier setup of the same database, "
+					+ "it will not be rebuilt on the first start.");
+			return true;
+		}
+		catch (IOException | SQLException e) {
+			wizard.showMessage("Unable to restore the cached search index, it will be rebuilt on the first start: "
+					+ e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Caches the index of the server if OpenMRS finished building it
+	 *
+	 * @return true if the index is cached for the key
+	 */
+	public boolean capture(String key, Connection connection) throws SQLException, IOException {
+		if (contains(key)) {
+			return true;
+		}
+		String indexVersion = getIndexVersion(connection);
+		File indexDir = new File(server.getServerDirectory(), LUCENE_DIR);
+		if (indexVersion == null || !indexDir.isDirectory()) {
+			return false;
+		}
+
+		File entryDir = getEntryDir(key);
+		File tmpDir = new File(cacheDir, key + ".tmp-" + UUID.randomUUID());
+		try {
+			List<String> files = listFiles(indexDir);
+			FileUtils.copyDirectory(indexDir, new File(tmpDir, LUCENE_DIR));
+			// the running server may have committed to the index during the copy, which is tried again later then
+			if (!files.equals(listFiles(indexDir))) {
+				return false;
+			}
+
+			Properties metadata = new Properties();
+			metadata.setProperty(INDEX_VERSION, indexVersion);
+			metadata.setProperty("platformVersion", String.valueOf(server.getPlatformVersion()));
+			try (OutputStream out = new FileOutputStream(new File(tmpDir, METADATA_FILE))) {
+				metadata.store(out, "Search index cached from server " + server.getServerId());
+			}
+
+			try {
+				Files.move(tmpDir.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpDir.toPath(), entryDir.toPath());
+			}
+			catch (IOException e) {
+				// another server cached the index for the same dump in the meantime
+				if (!contains(key)) {
+					throw e;
+				}
+			}
+			wizard.showMessage("Cached the search index, later setups from the same database will not rebuild it.");
+			return true;
+		}
+		finally {
+			FileUtils.deleteQuietly(tmpDir);
+		}
+	}
+
+	/**
+	 * Waits until OpenMRS finished building the index of the running server and caches it. Gives up once the
+	 * server did not finish within {@link #MAX_CAPTURE_WAIT_MILLIS} or the thread is interrupted.
+	 *
+	 * @return true if the index is cached for the key
+	 */
+	public boolean captureWhenIndexed(String key, String dbUri) {
+		long deadline = System.currentTimeMillis() + MAX_CAPTURE_WAIT_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(CAPTURE_INTERVAL_MILLIS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+
+			try (Connection connection = DbConnectionProvider.connect(dbUri, server.getDbUser(), server.getDbPassword(), 1)) {
+				if (capture(key, connection)) {
+					return true;
+				}
+			}
+			catch (SQLException | IOException e) {
+				// the server may not have created the database yet
+			}
+		}
+		return false;
+	}
+
+	static String getIndexVersion(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(SELECT_INDEX_VERSION_SQL);
+		     ResultSet resultSet = statement.executeQuery()) {
+			return resultSet.next() ? resultSet.getString(1) : null;
+		}
+	}
+
+	private static void setIndexVersion(Connection connection, String indexVersion) throws SQLException {
+		try (PreparedStatement delete = connection.prepareStatement(SDKConstants.RESET_SEARCH_INDEX_SQL);
+		     PreparedStatement insert = connection.prepareStatement(INSERT_INDEX_VERSION_SQL)) {
+			delete.execute();
+			insert.setString(1, indexVersion);
+			insert.setString(2, UUID.randomUUID().toString());
+			insert.execute();
+		}
+	}
+
+	private Properties readMetadata(String key) throws IOException {
+		Properties metadata = new Properties();
+		try (InputStream in = new FileInputStream(new File(getEntryDir(key), METADATA_FILE))) {
+			metadata.load(in);
+		}
+		return metadata;
+	}
+
+	/**
+	 * @return the relative paths, sizes and modification times of the files in the index
+	 */
+	private static List<String> listFiles(File indexDir) {
+		List<String> files = new ArrayList<>();
+		for (File file : FileUtils.listFiles(indexDir, null, true)) {
+			files.add(indexDir.toPath().relativize(file.toPath()) + ":" + file.length() + ":" + file.lastModified());
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	File getEntryDir(String key) {
+		return new File(cacheDir, key);
+	}
+}
@@ -41,6 +41,7 @@ public class SpaInstaller {
 	private ModuleInstaller moduleInstaller;
 	private ContentHelper contentHelper;
 	private Wizard wizard;
+	private FrontendModuleFilter frontendModuleFilter = FrontendModuleFilter.fromSystemProperties();
 
 	public SpaInstaller() {}
 
@@ -98,6 +99,10 @@ public class SpaInstaller {
 			wizard.showMessage("Installing SPA from Maven artifact: " + artifact);
 			String includes = spaArtifactProperties.get(BaseSdkProperties.INCLUDES);
 			moduleInstaller.installAndUnpackModule(artifact, buildTargetDir, includes);
+			if (frontendModuleFilter.isActive()) {
+				showSkippedModules(frontendModuleFilter.filterAssembledSpa(buildTargetDir));
+			}
+			precompressAssets(buildTargetDir);
 			wizard.showMessage("SPA successfully installed to " + buildTargetDir.getAbsolutePath());
 			return;
 		}
@@ -130,6 +135,10 @@ public class SpaInstaller {
 			return;
 		}
 
+		if (frontendModuleFilter.isActive()) {
+			showSkippedModules(frontendModuleFilter.filterBuildProperties(spaBuildProperties));
+		}
+
 		// If there are remaining spa properties, then build and install using node
 		Map<String, Object> spaConfigJson = convertPropertiesToJSON(spaBuildProperties);
 
@@ -154,6 +163,26 @@ public class SpaInstaller {
 		finally {
 			nodeHelper.close();
 		}
+
+		precompressAssets(buildTargetDir);
+	}
+
+	private void showSkippedModules(List<String> skippedModules) {
+		if (!skippedModules.isEmpty()) {
+			wizard.showMessage("Skipping " + skippedModules.size() + " frontend modules not selected with -D"
+					+ FrontendModuleFilter.SPA_MODULES_PROPERTY + "/-D" + FrontendModuleFilter.SPA_EXCLUDE_MODULES_PROPERTY
+					+ ": " + StringUtils.join(skippedModules, ", "));
+		}
+	}
+
+	/**
+	 * Writes gzip siblings for the large JS/CSS/JSON/SVG bundles, if enabled with -DprecompressAssets
+	 */
+	private void precompressAssets(File buildTargetDir) throws MojoExecutionException {
+		if (StaticAssetCompressor.isEnabled()) {
+			wizard.showMessage("Pre-compressing SPA assets in " + buildTargetDir.getAbsolutePath());
+			new StaticAssetCompressor().compressDirectory(buildTargetDir);
+		}
 	}
 	
 	private Map<String, Object> convertPropertiesToJSON(Map<String, String> properties) throws MojoExecutionException {
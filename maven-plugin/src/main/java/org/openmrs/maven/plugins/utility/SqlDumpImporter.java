@@ -0,0 +1,191 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.lang.StringUtils;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Imports a MySQL or PostgreSQL dump much faster than executing it statement by statement in auto-commit mode.
+ * <p>
+ * INSERT statements are sent to the database in JDBC batches and committed in large transactions. For MySQL,
+ * foreign key and unique checks are disabled during the import and the driver is asked to rewrite batches into
+ * multi-row inserts. The data of COPY ... FROM stdin statements, as written by pg_dump without --inserts,
+ * is streamed to PostgreSQL through the copy API of the driver.
+ */
+public class SqlDumpImporter {
+
+	static final int BATCH_SIZE = 500;
+
+	/**
+	 * The number of statements after which the import is committed, so that the transaction log does not grow
+	 * too much for large dumps
+	 */
+	static final int COMMIT_INTERVAL = 10000;
+
+	static final String MYSQL_REWRITE_BATCHES = "rewriteBatchedStatements=true";
+
+	private static final int MAX_ERROR_SNIPPET_LENGTH = 200;
+
+	private static final Logger log = LoggerFactory.getLogger(SqlDumpImporter.class);
+
+	/**
+	 * Notified after each statement read from the dump
+	 */
+	public interface ProgressListener {
+
+		void progress(long statements);
+	}
+
+	private final Connection connection;
+
+	private final boolean mySql;
+
+	private Statement statement;
+
+	private int batched;
+
+	private int uncommitted;
+
+	private long executed;
+
+	private ProgressListener progressListener;
+
+	public SqlDumpImporter(Connection connection, boolean mySql) {
+		this.connection = connection;
+		this.mySql = mySql;
+	}
+
+	public void setProgressListener(ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * @return the MySQL uri with batched statements rewritten into multi-row inserts by the driver
+	 */
+	public static String withRewrittenBatches(String mySqlUri) {
+		if (mySqlUri.contains("rewriteBatchedStatements")) {
+			return mySqlUri;
+		}
+		return mySqlUri + (mySqlUri.contains("?") ? "&" : "?") + MYSQL_REWRITE_BATCHES;
+	}
+
+	/**
+	 * Imports the dump in transactions of {@link #COMMIT_INTERVAL} statements and rolls back the uncommitted
+	 * statements if one of them fails.
+	 *
+	 * @return the number of executed statements
+	 */
+	public long importDump(Reader dump) throws SQLException, IOException {
+		SqlStatementReader reader = new SqlStatementReader(dump, mySql);
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		String sql = null;
+		try (Statement statement = connection.createStatement()) {
+			this.statement = statement;
+			if (mySql) {
+				statement.execute("SET FOREIGN_KEY_CHECKS=0");
+				statement.execute("SET UNIQUE_CHECKS=0");
+			}
+
+			while ((sql = reader.readStatement()) != null) {
+				if (SqlStatementReader.isInsert(sql)) {
+					statement.addBatch(sql);
+					if (++batched >= BATCH_SIZE) {
+						executeBatch();
+					}
+				} else {
+					executeBatch();
+					if (!mySql && SqlStatementReader.isCopyFromStdin(sql)) {
+						copyIn(sql, reader);
+					} else {
+						statement.execute(sql);
+					}
+					executed++;
+					uncommitted++;
+				}
+				if (uncommitted >= COMMIT_INTERVAL) {
+					executeBatch();
+					connection.commit();
+					uncommitted = 0;
+				}
+				if (progressListener != null) {
+					progressListener.progress(executed + batched);
+				}
+			}
+			sql = null;
+			executeBatch();
+			connection.commit();
+			return executed;
+		}
+		catch (SQLException | IOException e) {
+			connection.rollback();
+			if (sql != null) {
+				throw new SQLException("Failed to execute " + StringUtils.abbreviate(sql, MAX_ERROR_SNIPPET_LENGTH)
+						+ ": " + e.getMessage(), e);
+			}
+			throw e;
+		}
+		finally {
+			this.statement = null;
+			if (mySql) {
+				restoreChecks();
+			}
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Enables the checks disabled for the import again, also after a failed import, since they are settings of the
+	 * session, which outlives the import if the connection is used further
+	 */
+	private void restoreChecks() {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET FOREIGN_KEY_CHECKS=1");
+			statement.execute("SET UNIQUE_CHECKS=1");
+		}
+		catch (SQLException e) {
+			log.warn("Unable to enable foreign key and unique checks again: {}", e.getMessage());
+		}
+	}
+
+	private void executeBatch() throws SQLException {
+		if (batched == 0) {
+			return;
+		}
+		statement.executeBatch();
+		statement.clearBatch();
+		executed += batched;
+		uncommitted += batched;
+		batched = 0;
+	}
+
+	private void copyIn(String sql, SqlStatementReader reader) throws SQLException, IOException {
+		CopyIn copyIn = new CopyManager(connection.unwrap(BaseConnection.class)).copyIn(sql);
+		try {
+			String line;
+			long rows = 0;
+			while ((line = reader.readCopyLine()) != null) {
+				byte[] row = (line + "\n").getBytes(StandardCharsets.UTF_8);
+				copyIn.writeToCopy(row, 0, row.length);
+				rows++;
+			}
+			copyIn.endCopy();
+			log.debug("Copied {} rows with {}", rows, sql);
+		}
+		finally {
+			if (copyIn.isActive()) {
+				copyIn.cancelCopy();
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a SQL dump into statements while reading it, without loading the whole dump into memory.
+ * <p>
+ * It understands the quoting and comments of mysqldump and pg_dump output: quoted strings and identifiers,
+ * line and block comments, MySQL executable comments, which are kept, PostgreSQL dollar quoting and escape
+ * strings (E'...'), the DELIMITER command of the mysql client and the data of COPY ... FROM stdin statements.
+ */
+public class SqlStatementReader {
+
+	private static final Pattern DELIMITER_COMMAND = Pattern.compile("^\\s*DELIMITER\\s+(\\S+)\\s*$", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern COPY_FROM_STDIN = Pattern.compile("^COPY\\s.*\\sFROM\\s+stdin\\b.*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern DOLLAR_QUOTE = Pattern.compile("\\$[A-Za-z_0-9]*\\$");
+
+	private static final String END_OF_COPY_DATA = "\\.";
+
+	private final BufferedReader reader;
+
+	private final boolean mySql;
+
+	private String delimiter = ";";
+
+	/**
+	 * The rest of the current line which was not split into statements yet
+	 */
+	private String pendingLine;
+
+	public SqlStatementReader(Reader reader, boolean mySql) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+		this.mySql = mySql;
+	}
+
+	/**
+	 * @return the next statement without its delimiter and without comments, or null at the end of the dump
+	 */
+	public String readStatement() throws IOException {
+		StringBuilder statement = new StringBuilder();
+		boolean blockComment = false;
+		boolean keepBlockComment = false;
+		char quote = 0;
+		boolean backslashEscapes = false;
+		String dollarQuote = null;
+
+		String line;
+		while ((line = nextLine()) != null) {
+			if (quote == 0 && dollarQuote == null && !blockComment && statement.toString().trim().isEmpty()) {
+				Matcher delimiterCommand = DELIMITER_COMMAND.matcher(line);
+				if (mySql && delimiterCommand.matches()) {
+					delimiter = delimiterCommand.group(1);
+					statement.setLength(0);
+					continue;
+				}
+			}
+
+			int i = 0;
+			while (i < line.length()) {
+				char c = line.charAt(i);
+				if (blockComment) {
+					if (line.startsWith("*/", i)) {
+						blockComment = false;
+						if (keepBlockComment) {
+							statement.append("*/");
+						}
+						i += 2;
+					} else {
+						if (keepBlockComment) {
+							statement.append(c);
+						}
+						i++;
+					}
+				} else if (dollarQuote != null) {
+					if (line.startsWith(dollarQuote, i)) {
+						statement.append(dollarQuote);
+						i += dollarQuote.length();
+						dollarQuote = null;
+					} else {
+						statement.append(c);
+						i++;
+					}
+				} else if (quote != 0) {
+					statement.append(c);
+					if (c == '\\' && backslashEscapes && i + 1 < line.length()) {
+						statement.append(line.charAt(i + 1));
+						i += 2;
+						continue;
+					}
+					if (c == quote) {
+						quote = 0;
+					}
+					i++;
+				} else if (line.startsWith(delimiter, i)) {
+					pendingLine = line.substring(i + delimiter.length());
+					String sql = statement.toString().trim();
+					if (!sql.isEmpty()) {
+						return sql;
+					}
+					statement.setLength(0);
+					line = pendingLine;
+					pendingLine = null;
+					i = 0;
+				} else if (line.startsWith("--", i) || (mySql && c == '#')) {
+					break;
+				} else if (line.startsWith("/*", i)) {
+					blockComment = true;
+					keepBlockComment = mySql && line.startsWith("/*!", i);
+					if (keepBlockComment) {
+						statement.append("/*");
+					}
+					i += 2;
+				} else if (c == '\'' || c == '"' || c == '`') {
+					quote = c;
+					// PostgreSQL only supports backslash escapes in escape strings, which are prefixed with E
+					backslashEscapes = mySql ? c != '`' : c == '\'' && isEscapeStringPrefix(line, i);
+					statement.append(c);
+					i++;
+				} else if (c == '$' && !mySql && DOLLAR_QUOTE.matcher(line).region(i, line.length()).lookingAt()) {
+					Matcher matcher = DOLLAR_QUOTE.matcher(line).region(i, line.length());
+					matcher.lookingAt();
+					dollarQuote = matcher.group();
+					statement.append(dollarQuote);
+					i += dollarQuote.length();
+				} else {
+					statement.append(c);
+					i++;
+				}
+			}
+			statement.append('\n');
+		}
+
+		String sql = statement.toString().trim();
+		return sql.isEmpty() ? null : sql;
+	}
+
+	/**
+	 * @return the next line of data of a COPY ... FROM stdin statement or null at the end of the data
+	 */
+	public String readCopyLine() throws IOException {
+		if (pendingLine != null && pendingLine.trim().isEmpty()) {
+			// the rest of the line with the COPY statement
+			pendingLine = null;
+		}
+		String line = nextLine();
+		return line == null || END_OF_COPY_DATA.equals(line) ? null : line;
+	}
+
+	public static boolean isCopyFromStdin(String sql) {
+		return COPY_FROM_STDIN.matcher(sql).matches();
+	}
+
+	public static boolean isInsert(String sql) {
+		return sql.length() > 6 && sql.substring(0, 6).toUpperCase(Locale.ROOT).equals("INSERT");
+	}
+
+	private static boolean isEscapeStringPrefix(String line, int quoteIndex) {
+		if (quoteIndex < 1 || Character.toUpperCase(line.charAt(quoteIndex - 1)) != 'E') {
+			return false;
+		}
+		return quoteIndex < 2 || !Character.isJavaIdentifierPart(line.charAt(quoteIndex - 2));
+	}
+
+	private String nextLine() throws IOException {
+		if (pendingLine != null) {
+			String line = pendingLine;
+			pendingLine = null;
+			return line;
+		}
+		return reader.readLine();
+	}
+}
@@ -0,0 +1,168 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.openmrs.maven.plugins.utility.PropertiesUtils.getSdkProperties;
+
+/**
+ * Writes pre-compressed ".gz" siblings for the static assets of an installed SPA or OWA, so that
+ * servers honouring pre-compressed variants do not need to compress large bundles on every request.
+ * The servlet containers of the run goal do not serve the siblings, they are meant for a reverse proxy in front
+ * of the server, e.g. nginx with gzip_static. With Tomcat the run goal compresses responses on the fly instead.
+ * <p>
+ * Only text assets above {@link #DEFAULT_MIN_SIZE} bytes are compressed. Siblings that are already
+ * newer than their source file are left untouched, so re-running the step is cheap.
+ */
+public class StaticAssetCompressor {
+
+	/**
+	 * Name of the system property or sdk.properties entry that enables pre-compression
+	 */
+	public static final String PRECOMPRESS_ASSETS_PROPERTY = "precompressAssets";
+
+	public static final String GZIP_EXTENSION = ".gz";
+
+	static final long DEFAULT_MIN_SIZE = 1024;
+
+	static final List<String> COMPRESSIBLE_EXTENSIONS = Arrays.asList("js", "mjs", "css", "json", "svg");
+
+	private static final Logger log = LoggerFactory.getLogger(StaticAssetCompressor.class);
+
+	private final long minSize;
+
+	private final int threads;
+
+	public StaticAssetCompressor() {
+		this(DEFAULT_MIN_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	public StaticAssetCompressor(long minSize, int threads) {
+		this.minSize = minSize;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @return true if pre-compression was requested with -DprecompressAssets or in sdk.properties
+	 */
+	public static boolean isEnabled() throws MojoExecutionException {
+		String value = System.getProperty(PRECOMPRESS_ASSETS_PROPERTY);
+		if (StringUtils.isBlank(value)) {
+			Properties sdkProperties = getSdkProperties();
+			value = sdkProperties.getProperty(PRECOMPRESS_ASSETS_PROPERTY);
+		}
+		return Boolean.parseBoolean(value);
+	}
+
+	/**
+	 * Compresses all eligible assets found in the given directory and its subdirectories
+	 *
+	 * @param directory the directory to process, ignored if it does not exist
+	 * @return the number of files compressed
+	 */
+	public int compressDirectory(File directory) throws MojoExecutionException {
+		if (directory == null || !directory.isDirectory()) {
+			return 0;
+		}
+
+		List<Path> assets;
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			assets = paths.filter(this::shouldCompress).collect(Collectors.toList());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to list static assets in " + directory.getAbsolutePath(), e);
+		}
+
+		if (assets.isEmpty()) {
+			return 0;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, assets.size()));
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Path asset : assets) {
+				futures.add(executor.submit(() -> {
+					gzip(asset);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while compressing static assets in " + directory.getAbsolutePath(), e);
+		}
+		catch (ExecutionException e) {
+			throw new MojoExecutionException("Failed to compress static assets in " + directory.getAbsolutePath()
+					+ ": " + e.getCause().getMessage(), e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		log.info("Pre-compressed {} static assets in {}", assets.size(), directory.getAbsolutePath());
+		return assets.size();
+	}
+
+	boolean shouldCompress(Path path) {
+		File file = path.toFile();
+		if (!file.isFile() || file.length() < minSize) {
+			return false;
+		}
+		if (!COMPRESSIBLE_EXTENSIONS.contains(FilenameUtils.getExtension(file.getName()).toLowerCase())) {
+			return false;
+		}
+		File compressed = new File(file.getPath() + GZIP_EXTENSION);
+		return !compressed.exists() || compressed.lastModified() < file.lastModified();
+	}
+
+	private void gzip(Path source) throws IOException {
+		Path target = source.resolveSibling(source.getFileName() + GZIP_EXTENSION);
+		Path temp = source.resolveSibling(source.getFileName() + GZIP_EXTENSION + ".tmp");
+		try (InputStream in = Files.newInputStream(source);
+		     OutputStream out = new BestCompressionGZIPOutputStream(Files.newOutputStream(temp))) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * The assets are compressed once and served many times, so it pays off to use the highest level
+	 */
+	private static class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+		BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+			super(out, 64 * 1024);
+			def.setLevel(Deflater.BEST_COMPRESSION);
+		}
+	}
+}
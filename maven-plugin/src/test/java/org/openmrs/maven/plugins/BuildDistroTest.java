@@ -215,4 +215,24 @@ public class BuildDistroTest {
         assertThat(lines, not(hasItem("COPY openmrs_config /openmrs/distribution/openmrs_config")));
         assertThat(lines, not(hasItem("COPY openmrs_spa /openmrs/distribution/openmrs_spa")));
     }
+
+    // -----------------------------------------------------------------------
+    // HEALTHCHECK
+    // -----------------------------------------------------------------------
+
+    @Test
+    public void copyDockerfile_withRestModule_shouldCheckRestSession() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("omod.webservices.rest", "2.40.0");
+        List<String> lines = generateDockerfile("2.7.0", props, false);
+        assertThat(lines, hasItem("HEALTHCHECK --interval=15s --timeout=10s --start-period=10m --retries=3"
+                + " CMD curl -fsS -o /dev/null http://localhost:8080/openmrs/ws/rest/v1/session || exit 1"));
+    }
+
+    @Test
+    public void copyDockerfile_staticDockerfileWithoutRestModule_shouldCheckWebapp() throws Exception {
+        List<String> lines = generateDockerfile("2.4.0", new Properties(), false);
+        assertThat(lines, hasItem("HEALTHCHECK --interval=15s --timeout=10s --start-period=10m --retries=3"
+                + " CMD curl -fsS -o /dev/null http://localhost:8080/openmrs/ || exit 1"));
+    }
 }
@@ -0,0 +1,62 @@
+package org.openmrs.maven.plugins;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Project;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class BuildTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void computeDependencyFingerprint_shouldChangeWithPomsOfDeeplyNestedModules() throws Exception {
+		File projectDir = tempDir.newFolder("module");
+		writePom(projectDir, "api", "omod");
+		writePom(new File(projectDir, "api"), "impl/core");
+		writePom(new File(projectDir, "api/impl/core"), "../../../integration/tests");
+		writePom(new File(projectDir, "integration/tests"));
+		writePom(new File(projectDir, "omod"));
+		List<Project> projects = Collections.singletonList(
+				new Project("org.openmrs.module", "module", "1.0.0-SNAPSHOT", projectDir.getAbsolutePath()));
+
+		String fingerprint = Build.computeDependencyFingerprint(projects);
+
+		assertThat(Build.computeDependencyFingerprint(projects), is(fingerprint));
+
+		writePom(new File(projectDir, "integration/tests"), "more");
+
+		assertThat(Build.computeDependencyFingerprint(projects), not(fingerprint));
+	}
+
+	@Test
+	public void isResolved_shouldExpireAfterADay() throws Exception {
+		File marker = tempDir.newFile(".resolved");
+		FileUtils.writeStringToFile(marker, "fingerprint", StandardCharsets.UTF_8);
+		long now = marker.lastModified();
+
+		assertThat(Build.isResolved(marker, "fingerprint", now), is(true));
+		assertThat(Build.isResolved(marker, "other", now), is(false));
+		assertThat(Build.isResolved(marker, "fingerprint", now + Build.RESOLVED_MARKER_MAX_AGE_MILLIS), is(false));
+	}
+
+	private static void writePom(File dir, String... modules) throws Exception {
+		StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion><modules>");
+		for (String module : modules) {
+			pom.append("<module>").append(module).append("</module>");
+		}
+		pom.append("</modules></project>");
+		FileUtils.writeStringToFile(new File(dir, "pom.xml"), pom.toString(), StandardCharsets.UTF_8);
+	}
+}
@@ -1,13 +1,30 @@
 package org.openmrs.maven.plugins;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+import org.openmrs.maven.plugins.utility.JDKVersionHelper;
+import org.openmrs.maven.plugins.utility.Wizard;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 
 public class RunTest {
 
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
 	@Test
 	public void adjustXmxToAtLeast_shouldOverwriteExistingValueInMegabytes() {
 		String mavenOpts = "-XX:MaxPermSize=128m -Xmx128m";
@@ -107,4 +124,27 @@ public class RunTest {
 		assertThat(adjusted, is(equalTo(" -XX:MaxPermSize=256m")));
 	}
 
+	@Test
+	public void getJdkMajorVersion_shouldReadTheVersionOfTheServerJdk() throws Exception {
+		File javaHome = tempDir.newFolder("jdk-17");
+		FileUtils.writeStringToFile(new File(javaHome, "release"), "JAVA_VERSION=\"17.0.10\"\n", StandardCharsets.UTF_8);
+		Run run = new Run();
+		run.wizard = mock(Wizard.class);
+
+		assertThat(run.getJdkMajorVersion(new Server.ServerBuilder().setJavaHome(javaHome.getAbsolutePath()).build()),
+				is(17));
+		verify(run.wizard, never()).showWarning(anyString());
+	}
+
+	@Test
+	public void getJdkMajorVersion_shouldFallBackToTheRunningJdkIfTheVersionIsUnknown() throws Exception {
+		File javaHome = tempDir.newFolder("jdk");
+		Run run = new Run();
+		run.wizard = mock(Wizard.class);
+
+		assertThat(run.getJdkMajorVersion(new Server.ServerBuilder().setJavaHome(javaHome.getAbsolutePath()).build()),
+				is(JDKVersionHelper.parseMajorVersion(System.getProperty("java.specification.version"))));
+		verify(run.wizard).showWarning(startsWith("Unable to determine the version of the JDK in " + javaHome));
+	}
+
 }
@@ -0,0 +1,67 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+
+public class AppCdsArchiveTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	File serverDir;
+
+	AppCdsArchive appCdsArchive;
+
+	List<File> classpath;
+
+	@Before
+	public void setup() throws Exception {
+		serverDir = tempDir.newFolder("server1");
+		tempDir.newFile("server1/openmrs-2.7.0.war");
+		tempDir.newFolder("server1", SDKConstants.OPENMRS_SERVER_MODULES);
+		tempDir.newFile("server1/modules/webservices.rest-2.40.0.omod");
+		appCdsArchive = new AppCdsArchive(new Server(serverDir, new Properties()), mock(Wizard.class));
+		classpath = Collections.singletonList(tempDir.newFile("plexus-classworlds-2.6.0.jar"));
+	}
+
+	@Test
+	public void computeKey_shouldChangeWhenModulesChange() throws Exception {
+		String key = appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", classpath);
+
+		assertThat(appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", classpath), is(key));
+
+		tempDir.newFile("server1/modules/legacyui-1.16.0.omod");
+
+		assertThat(appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", classpath), not(key));
+	}
+
+	@Test
+	public void computeKey_shouldChangeWithTheJdk() throws Exception {
+		assertThat(appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", classpath),
+				not(appCdsArchive.computeKey("/usr/lib/jvm/jdk-17", "17.0.10", classpath)));
+	}
+
+	@Test
+	public void computeKey_shouldChangeWithTheClasspath() throws Exception {
+		String key = appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", classpath);
+
+		List<File> directClasspath = Arrays.asList(tempDir.newFile("openmrs-sdk-server-3x.jar"),
+				tempDir.newFile("cargo-core-api-container.jar"));
+
+		assertThat(appCdsArchive.computeKey("/usr/lib/jvm/jdk-21", "21.0.2", directClasspath), not(key));
+	}
+}
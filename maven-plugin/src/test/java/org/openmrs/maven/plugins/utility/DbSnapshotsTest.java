@@ -0,0 +1,229 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DbSnapshotsTest {
+
+	private static final String CREATE_OBS = "CREATE TABLE `obs` (\n  `obs_id` int NOT NULL,\n  `person_id` int NOT NULL,\n"
+			+ "  PRIMARY KEY (`obs_id`),\n  CONSTRAINT `obs_person` FOREIGN KEY (`person_id`) REFERENCES `person` (`person_id`)\n"
+			+ ") ENGINE=InnoDB DEFAULT CHARSET=utf8";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private Server server;
+
+	private Wizard wizard;
+
+	private Connection connection;
+
+	private Statement statement;
+
+	private DbSnapshots snapshots;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new Server.ServerBuilder().setServerId("server").setDbName("openmrs")
+				.setDbUri("jdbc:mysql://localhost:3306/openmrs").build();
+		server.setServerDirectory(tempDir.newFolder("server"));
+		wizard = mock(Wizard.class);
+
+		statement = mock(Statement.class);
+		connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		when(connection.createStatement(anyInt(), anyInt())).thenReturn(statement);
+		PreparedStatement noRows = mockQuery(resultSet(1));
+		when(connection.prepareStatement(anyString())).thenReturn(noRows);
+
+		snapshots = new DbSnapshots(server, wizard) {
+
+			@Override
+			Connection connect(String database) {
+				return connection;
+			}
+		};
+	}
+
+	@Test
+	public void withDatabase_shouldKeepConnectionParameters() {
+		assertThat(DbSnapshots.withDatabase("jdbc:mysql://localhost:3308/openmrs?autoReconnect=true&useSSL=false", ""),
+				is("jdbc:mysql://localhost:3308/?autoReconnect=true&useSSL=false"));
+		assertThat(DbSnapshots.withDatabase("jdbc:postgresql://db:5432/openmrs", "postgres"),
+				is("jdbc:postgresql://db:5432/postgres"));
+	}
+
+	@Test
+	public void escape_shouldEscapeQuotesAndControlCharacters() {
+		assertThat(DbSnapshots.escape("it's a\\b\nc\r\0"), is("it\\'s a\\\\b\\nc\\r\\0"));
+	}
+
+	@Test
+	public void copyDatabase_shouldCreateTablesWithTheirForeignKeys() throws Exception {
+		mockTables("obs");
+		ResultSet createTable = resultSet(2, "obs", CREATE_OBS);
+		when(statement.executeQuery("SHOW CREATE TABLE `openmrs`.`obs`")).thenReturn(createTable);
+
+		snapshots.copyDatabase("openmrs", "openmrs_snapshot_test");
+
+		verify(statement).execute(CREATE_OBS);
+		verify(statement).execute("INSERT INTO `openmrs_snapshot_test`.`obs` SELECT * FROM `openmrs`.`obs`");
+	}
+
+	@Test
+	public void getSchemaObjects_shouldCreateRoutinesViewsAndTriggersWithoutDefinerOrDatabase() throws Exception {
+		when(connection.prepareStatement(startsWith("SELECT routine_type"))).thenReturn(
+				mockQuery(resultSet(2, "FUNCTION", "age")));
+		when(connection.prepareStatement(startsWith("SELECT table_name FROM information_schema.views"))).thenReturn(
+				mockQuery(resultSet(1, "adults")));
+		when(connection.prepareStatement(startsWith("SELECT trigger_name"))).thenReturn(
+				mockQuery(resultSet(1, "obs_before_insert")));
+		ResultSet function = resultSet(3, "age", "", "CREATE DEFINER=`root`@`%` FUNCTION `age`(d date) RETURNS int");
+		when(statement.executeQuery("SHOW CREATE FUNCTION `openmrs`.`age`")).thenReturn(function);
+		ResultSet view = resultSet(2, "adults", "CREATE ALGORITHM=UNDEFINED DEFINER=`root`@`%` SQL SECURITY DEFINER "
+				+ "VIEW `adults` AS select `openmrs`.`person`.`person_id` from `openmrs`.`person`");
+		when(statement.executeQuery("SHOW CREATE VIEW `openmrs`.`adults`")).thenReturn(view);
+		ResultSet trigger = resultSet(3, "obs_before_insert", "",
+				"CREATE DEFINER=`openmrs`@`localhost` TRIGGER `obs_before_insert` BEFORE INSERT ON `obs` FOR EACH ROW SET @a = 1");
+		when(statement.executeQuery("SHOW CREATE TRIGGER `openmrs`.`obs_before_insert`")).thenReturn(trigger);
+
+		assertThat(snapshots.getSchemaObjects(connection, "openmrs"), contains(
+				"CREATE FUNCTION `age`(d date) RETURNS int",
+				"CREATE ALGORITHM=UNDEFINED SQL SECURITY DEFINER VIEW `adults` AS select `person`.`person_id` from `person`",
+				"CREATE TRIGGER `obs_before_insert` BEFORE INSERT ON `obs` FOR EACH ROW SET @a = 1"));
+	}
+
+	@Test
+	public void orderViews_shouldCreateViewsAfterTheViewsTheySelectFrom() {
+		Map<String, String> views = new LinkedHashMap<>();
+		views.put("a", "CREATE VIEW `a` AS select * from `b`");
+		views.put("b", "CREATE VIEW `b` AS select * from `c`");
+		views.put("c", "CREATE VIEW `c` AS select * from `person`");
+
+		assertThat(DbSnapshots.orderViews(views), contains(views.get("c"), views.get("b"), views.get("a")));
+	}
+
+	@Test
+	public void snapshot_shouldDropThePartialDatabaseWhenDumpingInstead() throws Exception {
+		doThrow(new SQLException("Access denied")).when(statement).execute(startsWith("SET FOREIGN_KEY_CHECKS"));
+		when(connection.prepareStatement(startsWith("SELECT 1 FROM information_schema.schemata"))).thenReturn(
+				mockQuery(resultSet(1, "1")));
+
+		snapshots.snapshot("test", DbSnapshots.Format.DATABASE);
+
+		verify(statement).execute("DROP DATABASE `openmrs_snapshot_test`");
+		File snapshotDir = new File(server.getServerDirectory(), DbSnapshots.SNAPSHOTS_DIR + "/test");
+		assertThat(snapshots.getMetadata("test").getProperty("format"), is("dump"));
+		assertThat(new File(snapshotDir, DbSnapshots.SCHEMA_FILE).isFile(), is(true));
+	}
+
+	@Test
+	public void snapshot_shouldDumpTablesWhichReadBackAsTheSameStatements() throws Exception {
+		mockTables("obs");
+		when(statement.executeQuery("SHOW CREATE TABLE `obs`")).thenReturn(resultSet(2, "obs", CREATE_OBS));
+		ResultSet rows = resultSet(2, "1", "it's a;\nvalue");
+		ResultSetMetaData columns = rows.getMetaData();
+		when(columns.getColumnTypeName(anyInt())).thenReturn("VARCHAR");
+		when(statement.executeQuery("SELECT * FROM `obs`")).thenReturn(rows);
+
+		snapshots.snapshot("test", DbSnapshots.Format.DUMP);
+
+		File snapshotDir = new File(server.getServerDirectory(), DbSnapshots.SNAPSHOTS_DIR + "/test");
+		assertThat(readStatements(new File(snapshotDir, DbSnapshots.SCHEMA_FILE)),
+				contains("DROP TABLE IF EXISTS `obs`", CREATE_OBS));
+		assertThat(readStatements(new File(snapshotDir, DbSnapshots.TABLES_DIR + "/obs.sql.gz")),
+				contains("INSERT INTO `obs` VALUES ('1','it\\'s a;\\nvalue')"));
+	}
+
+	@Test
+	public void deleteAll_shouldDeleteTheOtherSnapshotsIfOneFails() throws Exception {
+		writeSnapshot("a", "openmrs_snapshot_a");
+		writeSnapshot("b", "openmrs_snapshot_b");
+		doThrow(new SQLException("Access denied")).when(statement).execute("DROP DATABASE IF EXISTS `openmrs_snapshot_a`");
+
+		snapshots.deleteAll();
+
+		verify(statement).execute("DROP DATABASE IF EXISTS `openmrs_snapshot_b`");
+		verify(wizard).showWarning(startsWith("Failed to drop the database of the 'a' snapshot"));
+		assertThat(snapshots.getSnapshotNames(), contains("a"));
+	}
+
+	private void mockTables(String... tables) throws SQLException {
+		when(connection.prepareStatement(startsWith("SELECT table_name FROM information_schema.tables"))).thenReturn(
+				mockQuery(resultSet(1, tables)));
+	}
+
+	private void writeSnapshot(String name, String snapshotDb) throws Exception {
+		File metadata = new File(server.getServerDirectory(), DbSnapshots.SNAPSHOTS_DIR + "/" + name + "/"
+				+ DbSnapshots.METADATA_FILE);
+		FileUtils.writeStringToFile(metadata, "format=database\nsnapshotDatabase=" + snapshotDb + "\n",
+				StandardCharsets.UTF_8);
+	}
+
+	private static List<String> readStatements(File file) throws Exception {
+		List<String> statements = new ArrayList<>();
+		try (InputStreamReader in = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)),
+				StandardCharsets.UTF_8)) {
+			SqlStatementReader reader = new SqlStatementReader(in, true);
+			String statement;
+			while ((statement = reader.readStatement()) != null) {
+				statements.add(statement.trim());
+			}
+		}
+		return statements;
+	}
+
+	private static PreparedStatement mockQuery(ResultSet resultSet) throws SQLException {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		return statement;
+	}
+
+	/**
+	 * @return a result set with the values in rows of the given number of columns
+	 */
+	private static ResultSet resultSet(int columnCount, String... values) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+		when(metaData.getColumnCount()).thenReturn(columnCount);
+		when(resultSet.getMetaData()).thenReturn(metaData);
+
+		int rowCount = values.length / columnCount;
+		int[] row = { 0 };
+		when(resultSet.next()).thenAnswer(invocation -> ++row[0] <= rowCount);
+		when(resultSet.getString(anyInt())).thenAnswer(
+				invocation -> values[(row[0] - 1) * columnCount + invocation.<Integer>getArgument(0) - 1]);
+		return resultSet;
+	}
+}
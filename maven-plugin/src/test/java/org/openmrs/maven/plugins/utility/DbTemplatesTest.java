@@ -0,0 +1,46 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DbTemplatesTest {
+
+	@Test
+	public void getTemplateKey_shouldDependOnPlatformVersionAndDump() throws Exception {
+		String key = getTemplateKey("2.6.0", "jdbc:mysql://localhost:3308/openmrs", "INSERT INTO a VALUES (1);");
+
+		assertThat(key.length(), is(DbTemplates.KEY_LENGTH));
+		assertThat(getTemplateKey("2.6.0", "jdbc:mysql://localhost:3308/other", "INSERT INTO a VALUES (1);"), is(key));
+		assertThat(getTemplateKey("2.7.0", "jdbc:mysql://localhost:3308/openmrs", "INSERT INTO a VALUES (1);"), not(key));
+		assertThat(getTemplateKey("2.6.0", "jdbc:mysql://localhost:3308/openmrs", "INSERT INTO a VALUES (2);"), not(key));
+		assertThat(getTemplateKey("2.6.0", "jdbc:postgresql://localhost:5432/openmrs", "INSERT INTO a VALUES (1);"), not(key));
+	}
+
+	@Test
+	public void deleteAll_shouldDropEveryTemplate() throws Exception {
+		DbSnapshots databases = mock(DbSnapshots.class);
+		when(databases.getDatabases(DbTemplates.TEMPLATE_PREFIX)).thenReturn(
+				Arrays.asList("openmrs_template_0123456789abcdef", "openmrs_template_fedcba9876543210"));
+
+		new DbTemplates(new Server.ServerBuilder().build(), mock(Wizard.class), databases).deleteAll();
+
+		verify(databases).dropDatabaseQuietly("openmrs_template_0123456789abcdef");
+		verify(databases).dropDatabaseQuietly("openmrs_template_fedcba9876543210");
+	}
+
+	private static String getTemplateKey(String platformVersion, String dbUri, String dump) throws Exception {
+		Server server = new Server.ServerBuilder().setPlatformVersion(platformVersion).setDbUri(dbUri).build();
+		return new DbTemplates(server, null).getTemplateKey(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,44 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeferredMessagesTest {
+
+	@Test
+	public void getWizard_shouldHoldBackMessagesUntilFlushed() {
+		Wizard wizard = mock(Wizard.class);
+		DeferredMessages messages = new DeferredMessages(wizard);
+		Wizard output = messages.getWizard();
+
+		output.showMessage("Importing...");
+		output.showWarning("Slow disk");
+		verify(wizard, never()).showMessage(anyString());
+		verify(wizard, never()).showWarning(anyString());
+
+		messages.flush();
+		output.showMessage("Imported");
+
+		InOrder order = inOrder(wizard);
+		order.verify(wizard).showMessage("Importing...");
+		order.verify(wizard).showWarning("Slow disk");
+		order.verify(wizard).showMessage("Imported");
+	}
+
+	@Test
+	public void getWizard_shouldPassOtherCallsThrough() {
+		Wizard wizard = mock(Wizard.class);
+		when(wizard.isInteractiveMode()).thenReturn(true);
+
+		assertThat(new DeferredMessages(wizard).getWizard().isInteractiveMode(), is(true));
+	}
+}
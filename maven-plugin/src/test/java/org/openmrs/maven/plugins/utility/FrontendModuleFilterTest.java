@@ -0,0 +1,65 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class FrontendModuleFilterTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void accepts_shouldMatchScopedAndUnscopedNames() {
+		FrontendModuleFilter filter = new FrontendModuleFilter("esm-login-app, @openmrs/esm-home-app", "esm-home-app");
+
+		assertThat(filter.isActive(), is(true));
+		assertThat(filter.accepts("@openmrs/esm-login-app"), is(true));
+		assertThat(filter.accepts("@openmrs/esm-home-app"), is(false));
+		assertThat(filter.accepts("@openmrs/esm-patient-chart-app"), is(false));
+	}
+
+	@Test
+	public void accepts_shouldAcceptAllModulesIfNotConfigured() {
+		FrontendModuleFilter filter = new FrontendModuleFilter(null, "");
+
+		assertThat(filter.isActive(), is(false));
+		assertThat(filter.accepts("@openmrs/esm-login-app"), is(true));
+	}
+
+	@Test
+	public void filterAssembledSpa_shouldRewriteImportMapAndRemoveModuleDirectories() throws Exception {
+		File spaDir = tempDir.newFolder("frontend");
+		FileUtils.writeStringToFile(new File(spaDir, "importmap.json"), "{\"imports\":{"
+				+ "\"@openmrs/esm-login-app\":\"./openmrs-esm-login-app-5.0.0/openmrs-esm-login-app.js\","
+				+ "\"@openmrs/esm-home-app\":\"./openmrs-esm-home-app-5.0.0/openmrs-esm-home-app.js\"}}", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(spaDir, "routes.registry.json"),
+				"{\"@openmrs/esm-login-app\":{},\"@openmrs/esm-home-app\":{}}", StandardCharsets.UTF_8);
+		File loginApp = new File(spaDir, "openmrs-esm-login-app-5.0.0");
+		File homeApp = new File(spaDir, "openmrs-esm-home-app-5.0.0");
+		FileUtils.writeStringToFile(new File(loginApp, "openmrs-esm-login-app.js"), "", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(homeApp, "openmrs-esm-home-app.js"), "", StandardCharsets.UTF_8);
+
+		List<String> removed = new FrontendModuleFilter("esm-login-app", null).filterAssembledSpa(spaDir);
+
+		assertThat(removed, contains("@openmrs/esm-home-app"));
+		assertThat(loginApp.exists(), is(true));
+		assertThat(homeApp.exists(), is(false));
+		String importMap = FileUtils.readFileToString(new File(spaDir, "importmap.json"), StandardCharsets.UTF_8);
+		assertThat(importMap, containsString("esm-login-app"));
+		assertThat(importMap, not(containsString("esm-home-app")));
+		String routes = FileUtils.readFileToString(new File(spaDir, "routes.registry.json"), StandardCharsets.UTF_8);
+		assertThat(routes, not(containsString("esm-home-app")));
+	}
+}
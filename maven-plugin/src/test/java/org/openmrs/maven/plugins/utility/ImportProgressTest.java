@@ -0,0 +1,81 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ImportProgressTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void describeProgress_shouldReportPercentThroughputAndEta() throws Exception {
+		ImportProgress progress = new ImportProgress(mock(Wizard.class), 4 * 1024 * 1024);
+		IOUtils.toByteArray(progress.count(new ByteArrayInputStream(new byte[1024 * 1024])));
+
+		assertThat(progress.getBytesRead(), is(1024L * 1024));
+		assertThat(progress.describeProgress(2000, 2000),
+				is("Importing database: 25% (1.0 of 4.0 MB), 1000 statements/s, 0.5 MB/s, ETA 0:06"));
+	}
+
+	@Test
+	public void describeProgress_shouldOmitPercentForUnknownSize() {
+		ImportProgress progress = new ImportProgress(mock(Wizard.class), -1);
+
+		assertThat(progress.describeProgress(10, 1000), is("Importing database: 0.0 MB, 10 statements/s, 0.0 MB/s"));
+	}
+
+	@Test
+	public void describeProgress_shouldNotDependOnTheDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.GERMANY);
+		try {
+			ImportProgress progress = new ImportProgress(mock(Wizard.class), -1);
+
+			assertThat(progress.describeProgress(10, 1000), is("Importing database: 0.0 MB, 10 statements/s, 0.0 MB/s"));
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	@Test
+	public void count_shouldReportProgressWhileReadingTheDump() throws Exception {
+		Wizard wizard = mock(Wizard.class);
+		ImportProgress progress = new ImportProgress(wizard, 1024, 0);
+
+		IOUtils.toByteArray(progress.count(new ByteArrayInputStream(new byte[1024])));
+
+		verify(wizard).showMessage(argThat(message -> message.startsWith("Importing database: 100% (0.0 of 0.0 MB)")));
+	}
+
+	@Test
+	public void finish_shouldAppendSummaryToServerDirectory() throws Exception {
+		File serverDir = tempDir.newFolder("server");
+		ImportProgress progress = new ImportProgress(mock(Wizard.class), 100);
+		IOUtils.toByteArray(progress.count(new ByteArrayInputStream("SELECT 1;".getBytes(StandardCharsets.UTF_8))));
+
+		progress.finish(serverDir, "classpath://openmrs-platform.sql", "MySQL", 1);
+		progress.finish(serverDir, "classpath://openmrs-platform.sql", "MySQL", 1);
+
+		String summary = new String(Files.readAllBytes(new File(serverDir, ImportProgress.SUMMARY_FILE).toPath()),
+				StandardCharsets.UTF_8);
+		assertThat(summary, containsString("Imported 1 statements (0.0 MB) from classpath://openmrs-platform.sql into MySQL"));
+		assertThat(summary.split("\n").length, is(2));
+	}
+}
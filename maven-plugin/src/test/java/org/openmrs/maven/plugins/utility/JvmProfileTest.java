@@ -0,0 +1,54 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class JvmProfileTest {
+
+	@Test
+	public void apply_shouldSizeHeapFromTotalMemory() {
+		assertThat(JvmProfile.DEV.apply("", 16384, 8, false), containsString("-Xmx2048m"));
+		assertThat(JvmProfile.DEV.apply("", 6144, 8, false), containsString("-Xmx1536m"));
+		assertThat(JvmProfile.DEV.apply("", 2048, 2, false), containsString("-Xmx1024m"));
+		assertThat(JvmProfile.PERF.apply("", 65536, 16, false), containsString("-Xmx8192m -Xms8192m"));
+	}
+
+	@Test
+	public void apply_shouldReplaceHeapAndCollectorOptions() {
+		String options = JvmProfile.LOW_MEMORY.apply("-Xmx4g -XX:+UseG1GC -Dfoo=bar -Xms1g", 8192, 4, false);
+
+		assertThat(options, not(containsString("-Xmx4g")));
+		assertThat(options, not(containsString("-Xms1g")));
+		assertThat(options, not(containsString("UseG1GC")));
+		assertThat(options, containsString("-Dfoo=bar"));
+		assertThat(options, containsString("-XX:+UseSerialGC"));
+	}
+
+	@Test
+	public void apply_shouldStopAtC1ForDevStarts() {
+		assertThat(JvmProfile.DEV.apply("", 8192, 4, false), containsString("-XX:TieredStopAtLevel=1"));
+		assertThat(JvmProfile.PERF.apply("", 8192, 4, false), not(containsString("TieredStopAtLevel")));
+	}
+
+	@Test
+	public void apply_shouldAddContainerSupportIfAvailable() {
+		assertThat(JvmProfile.DEMO.apply("", 8192, 4, true), containsString("-XX:+UseContainerSupport"));
+		assertThat(JvmProfile.DEMO.apply("", 8192, 4, false), not(containsString("-XX:+UseContainerSupport")));
+	}
+
+	@Test
+	public void fromName_shouldFindProfileByName() throws Exception {
+		assertThat(JvmProfile.fromName("low-memory"), is(JvmProfile.LOW_MEMORY));
+		assertThat(JvmProfile.fromName("Perf"), is(JvmProfile.PERF));
+	}
+
+	@Test(expected = MojoExecutionException.class)
+	public void fromName_shouldFailForUnknownProfile() throws Exception {
+		JvmProfile.fromName("fast");
+	}
+}
@@ -0,0 +1,117 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.maven.plugins.model.Artifact;
+import org.openmrs.maven.plugins.model.NodeDistro;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OwaHelperTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Mock
+	ModuleInstaller moduleInstaller;
+
+	OwaHelper owaHelper;
+
+	File owaDir;
+
+	@Before
+	public void setup() throws Exception {
+		owaHelper = new OwaHelper();
+		owaDir = tempDir.newFolder("owa");
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(OwaHelper.EXPAND_OWAS_PROPERTY);
+	}
+
+	@Test
+	public void downloadOwas_shouldRenameOwaPackage() throws Exception {
+		System.setProperty(OwaHelper.EXPAND_OWAS_PROPERTY, "false");
+		writeOwaPackage("sysadmin", "1.2");
+
+		owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("openmrs-owa-sysadmin", "1.2")), moduleInstaller);
+
+		assertThat(new File(owaDir, "SystemAdministration.owa").exists(), is(true));
+		assertThat(new File(owaDir, "sysadmin-1.2.zip").exists(), is(false));
+	}
+
+	@Test
+	public void downloadOwas_shouldInstallExpandedOwaWithVersionMarker() throws Exception {
+		System.setProperty(OwaHelper.EXPAND_OWAS_PROPERTY, "true");
+		writeOwaPackage("conceptdictionary", "1.0.0");
+
+		owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("conceptdictionary", "1.0.0")), moduleInstaller);
+
+		File expandedDir = new File(owaDir, "conceptdictionary");
+		assertThat(new File(expandedDir, "manifest.webapp").exists(), is(true));
+		assertThat(FileUtils.readFileToString(new File(expandedDir, OwaHelper.OWA_VERSION_MARKER), StandardCharsets.UTF_8),
+				is("org.openmrs.owa:conceptdictionary:1.0.0"));
+		assertThat(new File(owaDir, "conceptdictionary.owa").exists(), is(false));
+		assertThat(new File(owaDir, "conceptdictionary-1.0.0.zip").exists(), is(false));
+	}
+
+	@Test
+	public void downloadOwas_shouldNotDownloadOwaExpandedInTheSameVersion() throws Exception {
+		System.setProperty(OwaHelper.EXPAND_OWAS_PROPERTY, "true");
+		File expandedDir = new File(owaDir, "conceptdictionary");
+		FileUtils.writeStringToFile(new File(expandedDir, OwaHelper.OWA_VERSION_MARKER),
+				"org.openmrs.owa:conceptdictionary:1.0.0", StandardCharsets.UTF_8);
+
+		owaHelper.downloadOwas(owaDir, Collections.singletonList(owa("conceptdictionary", "1.0.0")), moduleInstaller);
+
+		verify(moduleInstaller, never()).installModules(anyList(), anyString());
+	}
+
+	@Test
+	public void getNodeDistros_shouldUseCachedIndexWithinTtl() throws Exception {
+		File cacheDir = tempDir.newFolder("cache");
+		FileUtils.writeStringToFile(new File(cacheDir, OwaHelper.NODE_INDEX_FILE),
+				"[{\"version\":\"v20.17.0\",\"npm\":\"10.8.2\",\"lts\":\"Iron\"}]", StandardCharsets.UTF_8);
+		owaHelper.setNodeIndexCacheDir(cacheDir);
+
+		List<NodeDistro> nodeDistros = owaHelper.getNodeDistros();
+
+		assertThat(nodeDistros.size(), is(1));
+		assertThat(nodeDistros.get(0).getNpm(), is("10.8.2"));
+	}
+
+	private Artifact owa(String artifactId, String version) {
+		return new Artifact(artifactId, version, "org.openmrs.owa", Artifact.TYPE_ZIP);
+	}
+
+	private void writeOwaPackage(String artifactId, String version) throws Exception {
+		File owaFile = new File(owaDir, artifactId + "-" + version + ".zip");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(owaFile))) {
+			out.putNextEntry(new ZipEntry("manifest.webapp"));
+			out.write("{}".getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+	}
+}
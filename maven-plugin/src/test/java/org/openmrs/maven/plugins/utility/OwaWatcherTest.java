@@ -0,0 +1,101 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class OwaWatcherTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	File projectDir;
+
+	File outputDir;
+
+	File targetDir;
+
+	OwaWatcher owaWatcher;
+
+	@Before
+	public void setup() throws Exception {
+		projectDir = tempDir.newFolder("owa-project");
+		outputDir = new File(projectDir, "dist");
+		targetDir = tempDir.newFolder("server", "owa", "myowa");
+		owaWatcher = new OwaWatcher(projectDir, outputDir, targetDir, () -> {});
+	}
+
+	@Test
+	public void sync_shouldOnlyCopyChangedFilesAndRemoveDeletedOnes() throws Exception {
+		write(new File(outputDir, "index.html"), "<html/>");
+		write(new File(outputDir, "js/app.js"), "v1");
+		write(new File(targetDir, "index.html"), "<html/>");
+		write(new File(targetDir, "js/old.js"), "old");
+
+		assertThat(owaWatcher.sync(), is(2));
+		assertThat(FileUtils.readFileToString(new File(targetDir, "js/app.js"), StandardCharsets.UTF_8), is("v1"));
+		assertThat(new File(targetDir, "js/old.js").exists(), is(false));
+
+		write(new File(outputDir, "js/app.js"), "v2");
+
+		assertThat(owaWatcher.sync(), is(1));
+		assertThat(FileUtils.readFileToString(new File(targetDir, "js/app.js"), StandardCharsets.UTF_8), is("v2"));
+	}
+
+	@Test
+	public void sync_shouldKeepSdkFilesAndRemoveStaleGzipSiblings() throws Exception {
+		write(new File(outputDir, "app.js"), "v2");
+		write(new File(outputDir, "index.html"), "<html/>");
+		write(new File(targetDir, "app.js"), "v1");
+		write(new File(targetDir, "app.js.gz"), "v1 compressed");
+		write(new File(targetDir, "index.html"), "<html/>");
+		write(new File(targetDir, "index.html.gz"), "compressed");
+		write(new File(targetDir, "old.js.gz"), "old compressed");
+		write(new File(targetDir, OwaHelper.OWA_VERSION_MARKER), "org.openmrs.owa:myowa:1.0");
+
+		owaWatcher.sync();
+
+		assertThat(new File(targetDir, "app.js.gz").exists(), is(false));
+		assertThat(new File(targetDir, "old.js.gz").exists(), is(false));
+		assertThat(new File(targetDir, "index.html.gz").exists(), is(true));
+		assertThat(new File(targetDir, OwaHelper.OWA_VERSION_MARKER).exists(), is(true));
+	}
+
+	@Test
+	public void sync_shouldRegenerateGzipSiblingsOfChangedAssets() throws Exception {
+		owaWatcher = new OwaWatcher(projectDir, outputDir, targetDir, () -> {}, new StaticAssetCompressor(0, 1),
+				OwaWatcher.DEFAULT_DEBOUNCE_MILLIS);
+		write(new File(outputDir, "app.js"), "v2");
+		write(new File(targetDir, "app.js"), "v1");
+		write(new File(targetDir, "app.js.gz"), "v1 compressed");
+
+		owaWatcher.sync();
+
+		try (InputStream in = new GZIPInputStream(new FileInputStream(new File(targetDir, "app.js.gz")))) {
+			assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), is("v2"));
+		}
+	}
+
+	@Test
+	public void isIgnored_shouldIgnoreBuildOutputAndDependencies() {
+		assertThat(owaWatcher.isIgnored(new File(outputDir, "app.js").toPath()), is(true));
+		assertThat(owaWatcher.isIgnored(new File(projectDir, "node_modules/react/index.js").toPath()), is(true));
+		assertThat(owaWatcher.isIgnored(new File(projectDir, "app/js/app.js").toPath()), is(false));
+	}
+
+	private void write(File file, String content) throws Exception {
+		FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+	}
+}
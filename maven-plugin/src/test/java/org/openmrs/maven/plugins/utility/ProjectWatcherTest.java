@@ -0,0 +1,52 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ProjectWatcherTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	File moduleDir;
+
+	File otherModuleDir;
+
+	ProjectWatcher projectWatcher;
+
+	@Before
+	public void setup() throws Exception {
+		moduleDir = tempDir.newFolder("appointments");
+		otherModuleDir = tempDir.newFolder("queue");
+		projectWatcher = new ProjectWatcher(Arrays.asList(moduleDir, otherModuleDir), projectDir -> {});
+	}
+
+	@Test
+	public void isSource_shouldAcceptSourcesOfSubmodules() {
+		assertThat(projectWatcher.isSource(new File(moduleDir, "api/src/main/java/Service.java").toPath()), is(true));
+		assertThat(projectWatcher.isSource(new File(moduleDir, "omod/src/main/webapp/page.gsp").toPath()), is(true));
+		assertThat(projectWatcher.isSource(new File(moduleDir, "pom.xml").toPath()), is(false));
+	}
+
+	@Test
+	public void isSource_shouldIgnoreBuildOutput() {
+		assertThat(projectWatcher.isSource(new File(moduleDir, "omod/target/src/Generated.java").toPath()), is(false));
+		assertThat(projectWatcher.isSource(new File(moduleDir, "omod/node_modules/pkg/src/index.js").toPath()), is(false));
+	}
+
+	@Test
+	public void findProject_shouldReturnWatchedProjectContainingPath() {
+		assertThat(projectWatcher.findProject(new File(otherModuleDir, "api/src/Queue.java").toPath()),
+				is(otherModuleDir.toPath().toAbsolutePath().normalize()));
+		assertThat(projectWatcher.findProject(new File(tempDir.getRoot(), "other/src/A.java").toPath()), is(nullValue()));
+	}
+}
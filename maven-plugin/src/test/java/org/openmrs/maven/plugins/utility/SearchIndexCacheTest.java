@@ -0,0 +1,100 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.maven.plugins.model.Server;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SearchIndexCacheTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void capture_shouldNotCacheIndexBeforeItIsBuilt() throws Exception {
+		Server server = createServer("server");
+		writeIndexFile(server, "segments_1", "partial");
+		SearchIndexCache cache = new SearchIndexCache(server, mock(Wizard.class), tempDir.newFolder("cache"));
+
+		assertThat(cache.capture("key", mockConnection(null)), is(false));
+		assertThat(cache.contains("key"), is(false));
+	}
+
+	@Test
+	public void restore_shouldCopyCapturedIndexAndSetIndexVersion() throws Exception {
+		File cacheDir = tempDir.newFolder("cache");
+		Server server = createServer("server");
+		writeIndexFile(server, "segments_1", "index");
+		new SearchIndexCache(server, mock(Wizard.class), cacheDir).capture("key", mockConnection("7"));
+
+		Server otherServer = createServer("other");
+		SearchIndexCache cache = new SearchIndexCache(otherServer, mock(Wizard.class), cacheDir);
+		Connection connection = mockConnection(null);
+
+		assertThat(cache.contains("key"), is(true));
+		assertThat(cache.restore("key", connection), is(true));
+		File restored = new File(otherServer.getServerDirectory(), SearchIndexCache.LUCENE_DIR + "/indexes/segments_1");
+		assertThat(FileUtils.readFileToString(restored, StandardCharsets.UTF_8), is("index"));
+		PreparedStatement statement = connection.prepareStatement("");
+		verify(statement).setString(1, "7");
+	}
+
+	@Test
+	public void restore_shouldReturnFalseIfNothingIsCached() throws Exception {
+		SearchIndexCache cache = new SearchIndexCache(createServer("server"), mock(Wizard.class),
+				tempDir.newFolder("cache"));
+
+		assertThat(cache.restore("key", mockConnection(null)), is(false));
+	}
+
+	@Test
+	public void getKey_shouldDependOnTheDistribution() {
+		Server server = new Server.ServerBuilder().setVersion("3.0.0").build();
+		server.setDistroGroupId("org.openmrs");
+		server.setDistroArtifactId("referenceapplication");
+		String key = SearchIndexCache.getKey(server, "dump");
+
+		assertThat(key.length(), is(SearchIndexCache.KEY_LENGTH));
+		assertThat(SearchIndexCache.getKey(server, "dump"), is(key));
+		assertThat(SearchIndexCache.getKey(server, "other-dump"), not(key));
+		server.setVersion("3.1.0");
+		assertThat(SearchIndexCache.getKey(server, "dump"), not(key));
+	}
+
+	private Server createServer(String serverId) throws Exception {
+		Server server = new Server.ServerBuilder().setServerId(serverId).setPlatformVersion("2.6.0").build();
+		server.setServerDirectory(tempDir.newFolder(serverId));
+		return server;
+	}
+
+	private static void writeIndexFile(Server server, String name, String content) throws Exception {
+		File file = new File(server.getServerDirectory(), SearchIndexCache.LUCENE_DIR + "/indexes/" + name);
+		FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+	}
+
+	private static Connection mockConnection(String indexVersion) throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(indexVersion != null);
+		when(resultSet.getString(1)).thenReturn(indexVersion);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		return connection;
+	}
+}
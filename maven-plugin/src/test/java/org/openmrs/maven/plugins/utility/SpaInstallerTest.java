@@ -136,4 +136,19 @@ public class SpaInstallerTest {
         Artifact artifact = artifactCaptor.getValue();
         assertThat(artifact.getType(), equalTo(BaseSdkProperties.TYPE_ZIP));
     }
+
+    @Test
+    public void spaInstall_shouldOnlyBuildSelectedFrontendModules() throws MojoExecutionException, IOException {
+        Properties distroProperties = new Properties();
+        distroProperties.setProperty("spa.frontendModules.@openmrs/esm-login-app", "5.0.0");
+        distroProperties.setProperty("spa.frontendModules.@openmrs/esm-patient-chart-app", "8.0.0");
+        distroProperties.setProperty("spa.frontendModules.@openmrs/esm-home-app", "5.0.0");
+        spaInstaller.setFrontendModuleFilter(new FrontendModuleFilter("esm-login-app,@openmrs/esm-patient-chart-app", null));
+        spaInstaller.installFromDistroProperties(appDataDir, new DistroProperties(distroProperties));
+        File spaConfigFile = new File(appDataDir, "spa-build-config.json");
+        String spaConfig = FileUtils.readFileToString(spaConfigFile, StandardCharsets.UTF_8);
+        assertThat(spaConfig, Matchers.containsString("\"@openmrs/esm-login-app\":\"5.0.0\""));
+        assertThat(spaConfig, Matchers.containsString("\"@openmrs/esm-patient-chart-app\":\"8.0.0\""));
+        assertThat(spaConfig, Matchers.not(Matchers.containsString("esm-home-app")));
+    }
 }
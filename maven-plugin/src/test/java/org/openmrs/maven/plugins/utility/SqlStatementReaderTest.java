@@ -0,0 +1,87 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SqlStatementReaderTest {
+
+	@Test
+	public void readStatement_shouldSplitMySqlDump() throws Exception {
+		String dump = "-- MySQL dump\n"
+				+ "/*!40101 SET NAMES utf8 */;\n"
+				+ "/* plain comment */\n"
+				+ "INSERT INTO `person` VALUES (1,'it''s; fine'),(2,'a\\'b;c');\n"
+				+ "# hash comment\n"
+				+ "DELIMITER ;;\n"
+				+ "CREATE TRIGGER t BEFORE INSERT ON person FOR EACH ROW BEGIN SET NEW.x = 1; END ;;\n"
+				+ "DELIMITER ;\n"
+				+ "UNLOCK TABLES;";
+
+		assertThat(readAll(dump, true), contains(
+				"/*!40101 SET NAMES utf8 */",
+				"INSERT INTO `person` VALUES (1,'it''s; fine'),(2,'a\\'b;c')",
+				"CREATE TRIGGER t BEFORE INSERT ON person FOR EACH ROW BEGIN SET NEW.x = 1; END",
+				"UNLOCK TABLES"));
+	}
+
+	@Test
+	public void readStatement_shouldSplitPostgreSqlDump() throws Exception {
+		String dump = "--\n-- PostgreSQL database dump\n--\n"
+				+ "CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN NEW.x := 'a;b'; RETURN NEW; END; $body$ LANGUAGE plpgsql;\n"
+				+ "INSERT INTO public.person VALUES (1, 'a\\'); SELECT 1;";
+
+		assertThat(readAll(dump, false), contains(
+				"CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN NEW.x := 'a;b'; RETURN NEW; END; $body$ LANGUAGE plpgsql",
+				"INSERT INTO public.person VALUES (1, 'a\\')",
+				"SELECT 1"));
+	}
+
+	@Test
+	public void readStatement_shouldHandleBackslashEscapesInPostgreSqlEscapeStrings() throws Exception {
+		String dump = "INSERT INTO public.obs VALUES (E'it\\'s; fine', e'\\\\'); SELECT 'e\\';\nSELECT 1;";
+
+		assertThat(readAll(dump, false), contains(
+				"INSERT INTO public.obs VALUES (E'it\\'s; fine', e'\\\\')",
+				"SELECT 'e\\'",
+				"SELECT 1"));
+	}
+
+	@Test
+	public void readCopyLine_shouldReturnDataUntilEndMarker() throws Exception {
+		SqlStatementReader reader = new SqlStatementReader(new StringReader(
+				"COPY public.person (id, name) FROM stdin;\n1\tJohn; Doe\n2\t\\N\n\\.\nSELECT 1;"), false);
+
+		String copy = reader.readStatement();
+		assertThat(SqlStatementReader.isCopyFromStdin(copy), is(true));
+		assertThat(reader.readCopyLine(), is("1\tJohn; Doe"));
+		assertThat(reader.readCopyLine(), is("2\t\\N"));
+		assertThat(reader.readCopyLine(), is(nullValue()));
+		assertThat(reader.readStatement(), is("SELECT 1"));
+		assertThat(reader.readStatement(), is(nullValue()));
+	}
+
+	@Test
+	public void isInsert_shouldIgnoreCase() {
+		assertThat(SqlStatementReader.isInsert("insert into person values (1)"), is(true));
+		assertThat(SqlStatementReader.isInsert("INSERT"), is(false));
+		assertThat(SqlStatementReader.isInsert("CREATE TABLE person (id int)"), is(false));
+	}
+
+	private static List<String> readAll(String dump, boolean mySql) throws Exception {
+		SqlStatementReader reader = new SqlStatementReader(new StringReader(dump), mySql);
+		List<String> statements = new ArrayList<>();
+		String statement;
+		while ((statement = reader.readStatement()) != null) {
+			statements.add(statement);
+		}
+		return statements;
+	}
+}
@@ -0,0 +1,54 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class StaticAssetCompressorTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void compressDirectory_shouldOnlyCompressLargeTextAssets() throws Exception {
+		File dir = tempDir.newFolder("spa");
+		String content = StringUtils.repeat("console.log('openmrs');\n", 200);
+		File bundle = new File(dir, "nested/main.js");
+		FileUtils.writeStringToFile(bundle, content, StandardCharsets.UTF_8);
+		File small = new File(dir, "small.css");
+		FileUtils.writeStringToFile(small, "body {}", StandardCharsets.UTF_8);
+		File image = new File(dir, "logo.png");
+		FileUtils.writeStringToFile(image, content, StandardCharsets.UTF_8);
+
+		int compressed = new StaticAssetCompressor().compressDirectory(dir);
+
+		assertThat(compressed, is(1));
+		assertThat(new File(dir, "small.css.gz").exists(), is(false));
+		assertThat(new File(dir, "logo.png.gz").exists(), is(false));
+		try (InputStream in = new GZIPInputStream(new FileInputStream(new File(dir, "nested/main.js.gz")))) {
+			assertThat(new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8), is(content));
+		}
+	}
+
+	@Test
+	public void compressDirectory_shouldSkipAssetsWithUpToDateSiblings() throws Exception {
+		File dir = tempDir.newFolder("owa");
+		FileUtils.writeStringToFile(new File(dir, "app.js"), StringUtils.repeat("x", 4096), StandardCharsets.UTF_8);
+		StaticAssetCompressor compressor = new StaticAssetCompressor();
+
+		assertThat(compressor.compressDirectory(dir), is(1));
+		assertThat(compressor.compressDirectory(dir), is(0));
+	}
+}
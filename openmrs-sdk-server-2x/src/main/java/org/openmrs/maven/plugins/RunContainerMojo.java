@@ -6,6 +6,7 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -13,8 +14,13 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
 import org.openmrs.maven.plugins.cargo.CargoContainerRunner;
 import org.openmrs.maven.plugins.utility.MavenEnvironment;
+import org.openmrs.maven.plugins.utility.ServerClasspathCache;
 import org.openmrs.maven.plugins.utility.Wizard;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Thin Mojo that delegates to {@link CargoContainerRunner} for running an
  * embedded servlet container. The correct container embed JARs (Tomcat / Jetty)
@@ -33,6 +39,9 @@ public class RunContainerMojo extends AbstractMojo {
 	@Parameter(defaultValue = "${settings}", readonly = true)
 	private Settings settings;
 
+	@Parameter(defaultValue = "${plugin}", readonly = true)
+	private PluginDescriptor plugin;
+
 	@Component
 	private BuildPluginManager pluginManager;
 
@@ -68,6 +77,24 @@ public class RunContainerMojo extends AbstractMojo {
 		mavenEnvironment.setPluginManager(pluginManager);
 		mavenEnvironment.setWizard(wizard);
 
+		writeClasspath();
+
 		new CargoContainerRunner(containerId, serverId, port, watchApi, mavenEnvironment, wizard).run();
 	}
+
+	/**
+	 * Caches the resolved classpath of this plugin together with the Maven libraries provided to it, so that the run
+	 * goal can start the container directly next time
+	 */
+	private void writeClasspath() throws MojoExecutionException {
+		List<File> classpath = new ArrayList<>();
+		classpath.add(plugin.getPluginArtifact().getFile());
+		for (org.apache.maven.artifact.Artifact artifact : plugin.getArtifacts()) {
+			if (artifact.getFile() != null) {
+				classpath.add(artifact.getFile());
+			}
+		}
+		classpath.addAll(ServerClasspathCache.getProvidedMavenLibraries());
+		new ServerClasspathCache().write(plugin.getArtifactId(), plugin.getVersion(), classpath);
+	}
 }
@@ -69,6 +69,12 @@ public class Server extends BaseSdkProperties {
 
     public static final String PROPERTY_SERVLET_CONTAINER = "server.servlet.container";
 
+    public static final String PROPERTY_JVM_PROFILE = "server.jvm.profile";
+
+    public static final String PROPERTY_SQL_LOG = "server.sql.log";
+
+    public static final String PROPERTY_SQL_LOG_THRESHOLD = "server.sql.log.threshold";
+
     private static Path serversPath = Paths.get(System.getProperty("user.home"), SDKConstants.OPENMRS_SERVER_PATH).toAbsolutePath();
 
     private File propertiesFile;
@@ -367,14 +373,19 @@ public class Server extends BaseSdkProperties {
                 //They will be built in the order determined by maven based on dependencies between projects.
                 reactorProject.getModules().add(project.getArtifactId());
             } else {
-                //Add to simple build list without examining dependencies between projects.
-                projects.add(project);
+                String relativeModulePath = getRelativeModulePath(project);
+                if (relativeModulePath != null) {
+                    //Modules may also point outside of the reactor directory, e.g. where links are not supported.
+                    reactorProject.getModules().add(relativeModulePath);
+                } else {
+                    //Add to simple build list without examining dependencies between projects.
+                    projects.add(project);
+                }
             }
         }
 
         File pomFile = new File(getWatchedProjectsDirectory(), "pom.xml");
-        try {
-            Writer writer = new FileWriter(pomFile);
+        try (Writer writer = new FileWriter(pomFile)) {
             new MavenXpp3Writer().write(writer, reactorProject);
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to write pom.xml " + e.getMessage(), e);
@@ -384,6 +395,19 @@ public class Server extends BaseSdkProperties {
         return projects;
     }
 
+    /**
+     * @return the path of the project relative to the reactor project or null if there is none, e.g. on another drive
+     */
+    private String getRelativeModulePath(Project project) {
+        try {
+            Path reactorPath = getWatchedProjectsDirectory().toPath().toAbsolutePath().normalize();
+            Path projectPath = Paths.get(project.getPath()).toAbsolutePath().normalize();
+            return reactorPath.relativize(projectPath).toString().replace(File.separatorChar, '/');
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Creates Model to generate pom.xml for temporary project
      *
@@ -627,6 +651,16 @@ public class Server extends BaseSdkProperties {
         properties.setProperty(key, value);
     }
 
+    /**
+     * Remove param from properties object (without applying)
+     *
+     * @param key - property key
+     */
+    public void removeParam(String key) {
+        if(key != null)
+        properties.remove(key);
+    }
+
     /**
      * Add value to value list for a selected key
      *
@@ -776,6 +810,30 @@ public class Server extends BaseSdkProperties {
         setParam(PROPERTY_SERVLET_CONTAINER, servletContainer);
     }
 
+    public String getJvmProfile() {
+        return getParam(PROPERTY_JVM_PROFILE);
+    }
+
+    public void setJvmProfile(String jvmProfile) {
+        setParam(PROPERTY_JVM_PROFILE, jvmProfile);
+    }
+
+    public boolean isSqlLog() {
+        return Boolean.parseBoolean(getParam(PROPERTY_SQL_LOG));
+    }
+
+    public void setSqlLog(boolean sqlLog) {
+        setParam(PROPERTY_SQL_LOG, String.valueOf(sqlLog));
+    }
+
+    public String getSqlLogThreshold() {
+        return getParam(PROPERTY_SQL_LOG_THRESHOLD);
+    }
+
+    public void setSqlLogThreshold(String sqlLogThreshold) {
+        setParam(PROPERTY_SQL_LOG_THRESHOLD, sqlLogThreshold);
+    }
+
     public void setDbUser(String dbUser) {
         setParam(PROPERTY_DB_USER, dbUser);
     }
@@ -849,6 +907,13 @@ public class Server extends BaseSdkProperties {
         return new File(serverDirectory, "tmp");
     }
 
+    /**
+     * @return the directory in which an exploded copy of the server's WAR is kept between runs
+     */
+    public File getServerExplodedWarDirectory() {
+        return new File(serverDirectory, "exploded-war");
+    }
+
     public String getContainerId(){
         return getParam(PROPERTY_DOCKER_MYSQL);
     }
@@ -861,6 +926,24 @@ public class Server extends BaseSdkProperties {
         setParam("property."+propertyName, value);
     }
 
+    /**
+     * @return the directory in which the class data sharing archives of the server are kept
+     */
+    public File getServerAppCdsDirectory() {
+        return new File(serverDirectory, "appcds");
+    }
+
+    public void deleteAppCdsArchives() {
+        File appCdsDirectory = getServerAppCdsDirectory();
+        if (appCdsDirectory.exists()) {
+            try {
+                FileUtils.deleteDirectory(appCdsDirectory);
+            } catch (IOException e) {
+                logger.error("Could not delete class data sharing archives", e);
+            }
+        }
+    }
+
     public void deleteServerTmpDirectory() {
         File tmpDirectory = getServerTmpDirectory();
         if (tmpDirectory.exists()) {
@@ -0,0 +1,39 @@
+package org.openmrs.maven.plugins.utility;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Creates the SHA-1 checksums, which key the caches of the SDK and tell when their inputs changed
+ */
+public class Checksums {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private Checksums() {
+	}
+
+	/**
+	 * @return a new SHA-1 digest, which every Java platform is required to support
+	 */
+	public static MessageDigest sha1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not available", e);
+		}
+	}
+
+	/**
+	 * @return the bytes of a digest as lowercase hex digits
+	 */
+	public static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(hex);
+	}
+}
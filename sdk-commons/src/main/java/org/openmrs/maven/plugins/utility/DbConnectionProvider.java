@@ -0,0 +1,158 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the connections to the databases of a goal open, so that the checks, imports and updates of a setup share
+ * one connection per database uri instead of each connecting to the database again.
+ * <p>
+ * Connections are opened with retries backing off exponentially, as a database in a container which has just been
+ * started may refuse connections for a while. Invalid credentials and uris are not retried.
+ * Connections handed out must not be closed by the caller, they are closed with the provider.
+ */
+public class DbConnectionProvider implements AutoCloseable {
+
+	public static final int DEFAULT_ATTEMPTS = 5;
+
+	static final long INITIAL_RETRY_DELAY_MILLIS = 250;
+
+	static final long MAX_RETRY_DELAY_MILLIS = 4000;
+
+	private static final int LOGIN_TIMEOUT_SECONDS = 60;
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private static final Logger log = LoggerFactory.getLogger(DbConnectionProvider.class);
+
+	private final Map<String, Connection> connections = new LinkedHashMap<>();
+
+	private final int attempts;
+
+	public DbConnectionProvider() {
+		this(DEFAULT_ATTEMPTS);
+	}
+
+	public DbConnectionProvider(int attempts) {
+		this.attempts = attempts;
+	}
+
+	/**
+	 * @return the open connection for the uri and credentials, connecting if there is none or it is no longer valid
+	 */
+	public synchronized Connection getConnection(String uri, String user, String password) throws SQLException {
+		String key = uri + "\n" + user + "\n" + password;
+		Connection connection = connections.get(key);
+		if (connection != null) {
+			if (isValid(connection)) {
+				if (!connection.getAutoCommit()) {
+					connection.setAutoCommit(true);
+				}
+				return connection;
+			}
+			closeQuietly(connection);
+			connections.remove(key);
+		}
+
+		connection = connect(uri, user, password, attempts);
+		connections.put(key, connection);
+		return connection;
+	}
+
+	/**
+	 * Closes all connections. The provider can still be used afterwards, e.g. once a database which must not have
+	 * open connections has been copied.
+	 */
+	@Override
+	public synchronized void close() {
+		for (Connection connection : connections.values()) {
+			closeQuietly(connection);
+		}
+		connections.clear();
+	}
+
+	/**
+	 * Aborts all connections, which also stops the statements running on them in other threads
+	 */
+	public synchronized void abort() {
+		for (Connection connection : connections.values()) {
+			try {
+				connection.abort(Runnable::run);
+			}
+			catch (SQLException | RuntimeException e) {
+				log.debug("Failed to abort a connection: {}", e.getMessage());
+				closeQuietly(connection);
+			}
+		}
+		connections.clear();
+	}
+
+	/**
+	 * Opens a new connection, retrying with backoff while the database is not reachable
+	 */
+	public static Connection connect(String uri, String user, String password, int attempts) throws SQLException {
+		DriverManager.setLoginTimeout(LOGIN_TIMEOUT_SECONDS);
+		long delay = INITIAL_RETRY_DELAY_MILLIS;
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return DriverManager.getConnection(uri, user, password);
+			}
+			catch (SQLException e) {
+				if (isInvalidCredentials(e)) {
+					throw new SQLException("Invalid database credentials. Please check your username and password.", e);
+				}
+				if (isNoDriver(e) || attempt >= attempts) {
+					if (isNoDriver(e) || String.valueOf(e.getMessage()).contains("Communications link failure")) {
+						throw new SQLException("Incorrect Database Uri. Please provide a correct database uri.", e);
+					}
+					throw e;
+				}
+				log.debug("Connecting to {} failed (attempt {} of {}), retrying in {} ms: {}", uri, attempt, attempts,
+						delay, e.getMessage());
+			}
+
+			try {
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while connecting to " + uri, e);
+			}
+			delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+		}
+	}
+
+	static boolean isInvalidCredentials(SQLException e) {
+		String message = String.valueOf(e.getMessage());
+		// 28xxx is the SQL state of invalid authorization for both MySQL and PostgreSQL
+		return message.contains("Access denied") || (e.getSQLState() != null && e.getSQLState().startsWith("28"));
+	}
+
+	private static boolean isNoDriver(SQLException e) {
+		return String.valueOf(e.getMessage()).contains("No suitable driver found for");
+	}
+
+	private static boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		}
+		catch (SQLException e) {
+			log.debug("Failed to close a connection: {}", e.getMessage());
+		}
+	}
+}
@@ -1,5 +1,13 @@
 package org.openmrs.maven.plugins.utility;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
 public class JDKVersionHelper {
     public static int parseMajorVersion(String version) {
         if (version.startsWith("1.")) {
@@ -8,4 +16,44 @@ public class JDKVersionHelper {
             return Integer.parseInt(version.split("\\.")[0]);
         }
     }
+
+    /**
+     * Reads the version of the JDK from its release file, which avoids starting a JVM just to ask for it
+     *
+     * @return the version or null if it cannot be determined
+     */
+    public static String getJdkVersion(String javaHome) {
+        File releaseFile = new File(javaHome, "release");
+        if (releaseFile.exists()) {
+            try (InputStream in = FileUtils.openInputStream(releaseFile)) {
+                Properties release = new Properties();
+                release.load(in);
+                String version = StringUtils.strip(release.getProperty("JAVA_VERSION"), "\"");
+                if (StringUtils.isNotBlank(version)) {
+                    return version;
+                }
+            }
+            catch (IOException e) {
+                // fall back to the running JDK below
+            }
+        }
+        return new File(javaHome).getAbsoluteFile().equals(new File(System.getProperty("java.home")).getAbsoluteFile())
+                ? System.getProperty("java.version") : null;
+    }
+
+    /**
+     * @return the major version of the JDK or 0 if it cannot be determined
+     */
+    public static int getJdkMajorVersion(String javaHome) {
+        String version = getJdkVersion(javaHome);
+        if (version == null) {
+            return 0;
+        }
+        try {
+            return parseMajorVersion(version.split("[-+]")[0]);
+        }
+        catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
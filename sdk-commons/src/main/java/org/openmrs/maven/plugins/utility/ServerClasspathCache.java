@@ -0,0 +1,131 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openmrs.maven.plugins.model.Server;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the resolved runtime classpath of the openmrs-sdk-server-* plugins in the SDK cache directory,
+ * so that the run goal can start the servlet container JVM directly instead of invoking a new Maven build.
+ * <p>
+ * The classpath is written by the run-container goal each time it runs through Maven.
+ */
+public class ServerClasspathCache {
+
+	static final String CLASSPATH_DIR = "classpath";
+
+	/**
+	 * A class of each Maven library, which is provided to plugins instead of being resolved as their dependency,
+	 * so that the library is not part of the resolved classpath, but is used by the container runner. Libraries,
+	 * which the running Maven version does not provide, are skipped.
+	 */
+	static final List<String> PROVIDED_MAVEN_CLASSES = Arrays.asList(
+			"org.apache.maven.plugin.MojoExecutionException",
+			"org.apache.maven.project.MavenProject",
+			"org.apache.maven.model.Model",
+			"org.apache.maven.artifact.Artifact",
+			"org.apache.maven.building.Source",
+			"org.apache.maven.artifact.repository.metadata.Metadata",
+			"org.apache.maven.model.building.ModelBuilder",
+			"org.apache.maven.shared.utils.logging.MessageUtils",
+			"org.slf4j.Logger");
+
+	private final File cacheDir;
+
+	public ServerClasspathCache() {
+		this(Server.getServersPath().resolve(SDKConstants.OPENMRS_SDK_CACHE).resolve(CLASSPATH_DIR).toFile());
+	}
+
+	public ServerClasspathCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * @return the cached classpath or null if it was not resolved yet or one of its entries no longer exists
+	 */
+	public List<File> read(String pluginArtifactId, String pluginVersion) {
+		File classpathFile = getClasspathFile(pluginArtifactId, pluginVersion);
+		if (!classpathFile.exists()) {
+			return null;
+		}
+		List<File> classpath = new ArrayList<>();
+		try {
+			for (String line : Files.readAllLines(classpathFile.toPath(), StandardCharsets.UTF_8)) {
+				if (!line.trim().isEmpty()) {
+					File entry = new File(line.trim());
+					if (!entry.exists()) {
+						return null;
+					}
+					classpath.add(entry);
+				}
+			}
+		}
+		catch (IOException e) {
+			return null;
+		}
+		return classpath.isEmpty() ? null : classpath;
+	}
+
+	public void write(String pluginArtifactId, String pluginVersion, List<File> classpath) throws MojoExecutionException {
+		File classpathFile = getClasspathFile(pluginArtifactId, pluginVersion);
+		List<String> lines = new ArrayList<>();
+		for (File entry : classpath) {
+			lines.add(entry.getAbsolutePath());
+		}
+		try {
+			cacheDir.mkdirs();
+			Files.write(classpathFile.toPath(), lines, StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Unable to write classpath to " + classpathFile + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the jars of the Maven libraries provided to the running plugin, which the container runner needs
+	 */
+	public static List<File> getProvidedMavenLibraries() throws MojoExecutionException {
+		List<File> libraries = new ArrayList<>();
+		for (String className : PROVIDED_MAVEN_CLASSES) {
+			try {
+				addLibrary(libraries, Class.forName(className, false, ServerClasspathCache.class.getClassLoader()));
+			}
+			catch (ClassNotFoundException e) {
+				// not provided by this Maven version
+			}
+		}
+		// the logging binding of Maven, without which the container runner would not log anything
+		addLibrary(libraries, LoggerFactory.getILoggerFactory().getClass());
+		return libraries;
+	}
+
+	private static void addLibrary(List<File> libraries, Class<?> libraryClass) throws MojoExecutionException {
+		CodeSource codeSource = libraryClass.getProtectionDomain().getCodeSource();
+		if (codeSource == null || codeSource.getLocation() == null) {
+			return;
+		}
+		try {
+			File library = new File(codeSource.getLocation().toURI());
+			if (!libraries.contains(library)) {
+				libraries.add(library);
+			}
+		}
+		catch (URISyntaxException e) {
+			throw new MojoExecutionException("Unable to locate the Maven library of " + libraryClass.getName(), e);
+		}
+	}
+
+	File getClasspathFile(String pluginArtifactId, String pluginVersion) {
+		return new File(cacheDir, pluginArtifactId + "-" + pluginVersion + ".classpath");
+	}
+}
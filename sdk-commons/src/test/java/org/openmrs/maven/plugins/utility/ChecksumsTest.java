@@ -0,0 +1,24 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ChecksumsTest {
+
+	@Test
+	public void toHex_shouldWriteTwoLowercaseDigitsPerByte() {
+		assertThat(Checksums.toHex(new byte[] { 0, 10, (byte) 0xab, (byte) 0xff }), is("000aabff"));
+		assertThat(Checksums.toHex(new byte[0]), is(""));
+	}
+
+	@Test
+	public void sha1_shouldCreateTheSha1OfTheInput() {
+		byte[] digest = Checksums.sha1().digest("abc".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(Checksums.toHex(digest), is("a9993e364706816aba3e25717850c26c9cd0d89d"));
+	}
+}
@@ -0,0 +1,149 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DbConnectionProviderTest {
+
+	private static final String URI = "jdbc:sdktest://localhost/openmrs";
+
+	private static final TestDriver driver = new TestDriver();
+
+	@BeforeClass
+	public static void registerDriver() throws SQLException {
+		DriverManager.registerDriver(driver);
+	}
+
+	@AfterClass
+	public static void deregisterDriver() throws SQLException {
+		DriverManager.deregisterDriver(driver);
+	}
+
+	@Before
+	public void setup() {
+		driver.connects = 0;
+		driver.failures = 0;
+		driver.failure = null;
+	}
+
+	@Test
+	public void getConnection_shouldReuseValidConnection() throws Exception {
+		try (DbConnectionProvider provider = new DbConnectionProvider()) {
+			Connection connection = provider.getConnection(URI, "root", "Admin123");
+
+			assertThat(provider.getConnection(URI, "root", "Admin123"), is(sameInstance(connection)));
+			assertThat(driver.connects, is(1));
+			assertThat(provider.getConnection(URI, "openmrs", "Admin123"), is(not(sameInstance(connection))));
+		}
+	}
+
+	@Test
+	public void getConnection_shouldReconnectAfterClose() throws Exception {
+		DbConnectionProvider provider = new DbConnectionProvider();
+		Connection connection = provider.getConnection(URI, "root", "Admin123");
+		provider.close();
+
+		assertThat(provider.getConnection(URI, "root", "Admin123"), is(not(sameInstance(connection))));
+		assertThat(driver.connects, is(2));
+	}
+
+	@Test
+	public void connect_shouldRetryUntilDatabaseAcceptsConnections() throws Exception {
+		driver.failures = 2;
+		driver.failure = new SQLException("Connection refused", "08001");
+
+		DbConnectionProvider.connect(URI, "root", "Admin123", 3);
+
+		assertThat(driver.connects, is(3));
+	}
+
+	@Test
+	public void connect_shouldNotRetryInvalidCredentials() {
+		driver.failures = 5;
+		driver.failure = new SQLException("password authentication failed for user \"root\"", "28P01");
+
+		try {
+			DbConnectionProvider.connect(URI, "root", "wrong", 5);
+			fail();
+		}
+		catch (SQLException e) {
+			assertThat(e.getMessage(), containsString("Invalid database credentials"));
+			assertThat(driver.connects, is(1));
+		}
+	}
+
+	public static class TestDriver implements Driver {
+
+		int connects;
+
+		int failures;
+
+		SQLException failure;
+
+		@Override
+		public Connection connect(String url, Properties info) throws SQLException {
+			if (!acceptsURL(url)) {
+				return null;
+			}
+			connects++;
+			if (failures > 0) {
+				failures--;
+				throw failure;
+			}
+			Connection connection = mock(Connection.class);
+			when(connection.isValid(5)).thenReturn(true);
+			when(connection.getAutoCommit()).thenReturn(true);
+			return connection;
+		}
+
+		@Override
+		public boolean acceptsURL(String url) {
+			return url.startsWith("jdbc:sdktest:");
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+			return new DriverPropertyInfo[0];
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+	}
+}
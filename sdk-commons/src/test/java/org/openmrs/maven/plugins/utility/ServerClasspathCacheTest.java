@@ -0,0 +1,51 @@
+package org.openmrs.maven.plugins.utility;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ServerClasspathCacheTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void read_shouldReturnWrittenClasspath() throws Exception {
+        ServerClasspathCache cache = new ServerClasspathCache(tempDir.newFolder("classpath"));
+        File plugin = tempDir.newFile("openmrs-sdk-server-3x.jar");
+        File cargo = tempDir.newFile("cargo-core-api-container.jar");
+
+        cache.write("openmrs-sdk-server-3x", "6.9.0", Arrays.asList(plugin, cargo));
+
+        assertThat(cache.read("openmrs-sdk-server-3x", "6.9.0"), contains(plugin.getAbsoluteFile(), cargo.getAbsoluteFile()));
+        assertThat(cache.read("openmrs-sdk-server-2x", "6.9.0"), nullValue());
+    }
+
+    @Test
+    public void read_shouldReturnNullIfAnEntryWasRemoved() throws Exception {
+        ServerClasspathCache cache = new ServerClasspathCache(tempDir.newFolder("classpath"));
+        File plugin = tempDir.newFile("openmrs-sdk-server-3x.jar");
+        File cargo = tempDir.newFile("cargo-core-api-container.jar");
+        cache.write("openmrs-sdk-server-3x", "6.9.0", Arrays.asList(plugin, cargo));
+
+        cargo.delete();
+
+        assertThat(cache.read("openmrs-sdk-server-3x", "6.9.0"), nullValue());
+    }
+
+    @Test
+    public void getProvidedMavenLibraries_shouldReturnJarsOfMavenApi() throws Exception {
+        File pluginApi = new File(MojoExecutionException.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        assertThat(ServerClasspathCache.getProvidedMavenLibraries(), hasItem(pluginApi));
+    }
+}